@@ -0,0 +1,54 @@
+package com.products.backend.benchmark;
+
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic catalogs shared by the benchmarks.
+ */
+public final class CatalogFixtures {
+    private static final String[] WORDS = {
+            "apple", "banana", "milk", "bread", "soap", "shampoo", "aspirin", "charger",
+            "cable", "juice", "coffee", "detergent", "vitamin", "headphones", "rice", "sponge"
+    };
+    private static final String[] CATEGORIES = {"Food", "Cleaning", "Pharmacy", "Electronics"};
+
+    private CatalogFixtures() {
+    }
+
+    // Same ids and names as CategoryRepository.setPlaceHolders()
+    public static List<Category> categories() {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            Category category = new Category();
+            category.setId(i + 1);
+            category.setName(CATEGORIES[i]);
+            categories.add(category);
+        }
+        return categories;
+    }
+
+    public static List<Product> products(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Category> categories = categories();
+        LocalDate today = LocalDate.of(2025, 1, 1);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setName(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i);
+            product.setCategory(categories.get(random.nextInt(categories.size())));
+            product.setUnitPrice(Math.round(random.nextDouble(0.5, 500) * 100) / 100.0);
+            product.setStock(random.nextInt(10) == 0 ? 0 : random.nextInt(1, 200));
+            product.setExpirationDate(random.nextInt(5) == 0 ? null : today.plusDays(random.nextInt(730)));
+            product.setCreatedAt(today);
+            product.setUpdatedAt(today);
+            products.add(product);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,79 @@
+package com.products.backend.benchmark;
+
+import com.products.backend.classes.metrics.Metric;
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+import com.products.backend.repository.ProductRepository;
+import com.products.backend.service.product.metrics.InventoryMetrics;
+import com.products.backend.service.product.metrics.SnapshotMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The original per-category nested loop against the single-pass snapshot computation
+ * (sequential and fork-join) and the incrementally maintained totals.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MetricsBenchmark {
+
+    @Param({"10000", "1000000"})
+    int catalogSize;
+
+    ProductRepository repository;
+    List<Category> categories;
+    SnapshotMetrics sequential;
+    SnapshotMetrics parallel;
+    InventoryMetrics incremental;
+
+    @Setup
+    public void setUp() {
+        repository = new ProductRepository();
+        CatalogFixtures.products(catalogSize).forEach(repository::save);
+        categories = CatalogFixtures.categories();
+        sequential = new SnapshotMetrics(Integer.MAX_VALUE);
+        parallel = new SnapshotMetrics(0);
+        incremental = new InventoryMetrics(repository.findAll());
+    }
+
+    // getGeneralMetrics as it was: one full copy and filter per category
+    @Benchmark
+    public List<Metric> nestedLoop() {
+        List<Metric> metrics = new ArrayList<>();
+        int overallQuantity = 0;
+        double overallValue = 0;
+        for (Category category : categories) {
+            List<Product> categoryProducts = repository.findAll().stream().filter(product -> product.getCategory().getId() == category.getId()).toList();
+            int quantity = categoryProducts.stream().map(Product::getStock).reduce(0, Integer::sum);
+            double value = categoryProducts.stream().map(product -> product.getStock() * product.getUnitPrice()).reduce(0.0, Double::sum);
+            overallQuantity += quantity;
+            overallValue += value;
+            metrics.add(new Metric(category, quantity, value, quantity > 0 ? value / quantity : 0));
+        }
+        Category overall = new Category();
+        overall.setName("Overall");
+        metrics.add(new Metric(overall, overallQuantity, overallValue, overallQuantity > 0 ? overallValue / overallQuantity : 0));
+        return metrics;
+    }
+
+    @Benchmark
+    public List<Metric> snapshotSequential() {
+        return sequential.metrics(repository.snapshot(), categories);
+    }
+
+    @Benchmark
+    public List<Metric> snapshotParallel() {
+        return parallel.metrics(repository.snapshot(), categories);
+    }
+
+    @Benchmark
+    public List<Metric> incremental() {
+        return incremental.metrics(categories);
+    }
+}
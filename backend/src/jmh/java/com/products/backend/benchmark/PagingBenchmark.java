@@ -0,0 +1,102 @@
+package com.products.backend.benchmark;
+
+import com.products.backend.dto.product.PaginatedProducts;
+import com.products.backend.model.Product;
+import com.products.backend.repository.CategoryRepository;
+import com.products.backend.repository.ProductRepository;
+import com.products.backend.repository.index.IndexedProduct;
+import com.products.backend.service.catalog.CatalogVersion;
+import com.products.backend.service.product.ProductService;
+import com.products.backend.service.product.paging.TopKSelector;
+import com.products.backend.service.product.query.ProductOrder;
+import com.products.backend.service.product.query.ProductQuery;
+import com.products.backend.service.product.query.SortKeys;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full stream sort versus the bounded-heap page selection, the service path that walks the sorted indexes,
+ * and the full sort on extracted primitive keys used for selective queries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PagingBenchmark {
+
+    @Param({"1000000"})
+    int catalogSize;
+
+    @Param({"0", "10", "100"})
+    int page;
+
+    @Param({"name", "category-price"})
+    String sortBy;
+
+    int size = 10;
+    List<Product> products;
+    Comparator<Product> order;
+    ProductService service;
+    IndexedProduct[] rows;
+    ProductOrder keyOrder;
+
+    @Setup
+    public void setUp() {
+        products = CatalogFixtures.products(catalogSize);
+        ProductRepository repository = new ProductRepository();
+        for (Product product : products) {
+            repository.save(product);
+        }
+        // Result caching off, every call pages through the match instead of slicing a cached result
+        service = new ProductService(repository, new CategoryRepository(), new CatalogVersion(), "incremental",
+                100_000, 0, 0, 0, 100_000);
+        rows = repository.snapshot();
+        keyOrder = ProductQuery.compile(new ProductQuery.Parameters(null, null, null, sortBy, "asc")).sortOrder();
+        String[] fields = sortBy.split("-");
+        Comparator<Product> comparator = comparator(fields[0]);
+        for (int i = 1; i < fields.length; i++) {
+            comparator = comparator.thenComparing(comparator(fields[i]));
+        }
+        order = comparator.thenComparing(Product::getId);
+    }
+
+    @Benchmark
+    public List<Product> fullSort() {
+        return products.stream()
+                .sorted(order)
+                .skip((long) page * size)
+                .limit(size)
+                .toList();
+    }
+
+    @Benchmark
+    public List<Product> topK() {
+        return TopKSelector.page(products, order, (long) page * size, size);
+    }
+
+    @Benchmark
+    public int[] keySort() {
+        return SortKeys.sort(rows, keyOrder, 100_000);
+    }
+
+    @Benchmark
+    public PaginatedProducts indexWalk() {
+        return service.getAllProducts(null, null, null, sortBy, "asc", page, size);
+    }
+
+    private static Comparator<Product> comparator(String field) {
+        return switch (field) {
+            case "category" -> Comparator.comparing((Product product) -> product.getCategory().getName(), String.CASE_INSENSITIVE_ORDER);
+            case "price" -> Comparator.comparing(Product::getUnitPrice);
+            case "stock" -> Comparator.comparing(Product::getStock);
+            case "expirationdate" -> Comparator.comparing(product -> Optional.ofNullable(product.getExpirationDate()).orElse(LocalDate.MAX));
+            default -> Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER);
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.products.backend.benchmark;
+
+import com.products.backend.classes.metrics.Metric;
+import com.products.backend.dto.product.PaginatedProducts;
+import com.products.backend.repository.CategoryRepository;
+import com.products.backend.repository.ProductRepository;
+import com.products.backend.service.catalog.CatalogVersion;
+import com.products.backend.service.product.ProductService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths of ProductService over catalogs from 1K to 1M products.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        @Param({"1000", "10000", "100000", "1000000"})
+        int catalogSize;
+
+        // Result cache entries, 1000 is the products.cache.max-entries default and 0 measures the uncached paths
+        @Param({"1000", "0"})
+        int cacheEntries;
+
+        ProductService service;
+
+        @Setup
+        public void setUp() {
+            ProductRepository repository = new ProductRepository();
+            CatalogFixtures.products(catalogSize).forEach(repository::save);
+            CategoryRepository categoryRepository = new CategoryRepository();
+            categoryRepository.setPlaceHolders();
+            service = new ProductService(repository, categoryRepository, new CatalogVersion(), "incremental",
+                    100_000, cacheEntries, 100_000, 1_000_000, 100_000);
+        }
+    }
+
+    // Representative combinations of the GET /products parameters sent by the frontend
+    @State(Scope.Benchmark)
+    public static class ListQuery {
+        @Param({"default", "nameFilter", "categoryPrice", "availableStockDesc", "deepPage", "expiring"})
+        String query;
+
+        String name;
+        String category;
+        Boolean available;
+        String sortBy;
+        String direction;
+        int page;
+
+        @Setup
+        public void setUp() {
+            switch (query) {
+                case "nameFilter" -> set("milk", null, null, "name", "asc", 0);
+                case "categoryPrice" -> set(null, "1-3", null, "category-price", "asc-desc", 0);
+                case "availableStockDesc" -> set(null, null, true, "stock", "desc", 0);
+                case "deepPage" -> set(null, null, null, "name", "asc", 500);
+                case "expiring" -> set("a", "2", true, "expirationDate-name", "asc-asc", 3);
+                default -> set(null, null, null, null, null, 0);
+            }
+        }
+
+        private void set(String name, String category, Boolean available, String sortBy, String direction, int page) {
+            this.name = name;
+            this.category = category;
+            this.available = available;
+            this.sortBy = sortBy;
+            this.direction = direction;
+            this.page = page;
+        }
+    }
+
+    @Benchmark
+    public PaginatedProducts getAllProducts(Catalog catalog, ListQuery query) {
+        return catalog.service.getAllProducts(query.name, query.category, query.available, query.sortBy, query.direction, query.page, 10);
+    }
+
+    @Benchmark
+    public List<Metric> getGeneralMetrics(Catalog catalog) {
+        return catalog.service.getGeneralMetrics();
+    }
+}
@@ -0,0 +1,94 @@
+package com.products.backend.benchmark;
+
+import com.products.backend.dto.product.PaginatedProducts;
+import com.products.backend.dto.product.ProductRequest;
+import com.products.backend.dto.product.ProductResponse;
+import com.products.backend.model.Category;
+import com.products.backend.repository.CategoryRepository;
+import com.products.backend.repository.ProductRepository;
+import com.products.backend.service.catalog.CatalogVersion;
+import com.products.backend.service.product.ProductService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write throughput of ProductService with several threads hitting the same catalog,
+ * alone and while list queries run next to them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductWriteBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int catalogSize;
+
+    // Result cache entries, 1000 is the products.cache.max-entries default and adds the invalidation cost to writes
+    @Param({"1000", "0"})
+    int cacheEntries;
+
+    ProductService service;
+    List<Category> categories;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProductRepository repository = new ProductRepository();
+        CatalogFixtures.products(catalogSize).forEach(repository::save);
+        categories = CatalogFixtures.categories();
+        service = new ProductService(repository, new CategoryRepository(), new CatalogVersion(), "incremental",
+                100_000, cacheEntries, 100_000, 1_000_000, 100_000);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ProductResponse createProduct() {
+        return service.createProduct(request());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ProductResponse updateProduct() {
+        return service.updateProduct(randomId(), request());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ProductResponse markInStock() {
+        return service.markInStock(randomId(), ThreadLocalRandom.current().nextInt(1, 100));
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public PaginatedProducts readWhileWriting() {
+        return service.getAllProducts(null, null, true, "price", "desc", 0, 10);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public ProductResponse writeWhileReading() {
+        return service.updateProduct(randomId(), request());
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, catalogSize + 1);
+    }
+
+    private ProductRequest request() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ProductRequest request = new ProductRequest();
+        request.setName("bench product " + random.nextInt(1_000_000));
+        request.setCategory(categories.get(random.nextInt(categories.size())));
+        request.setUnitPrice(random.nextDouble(0.5, 500));
+        request.setStock(random.nextInt(0, 200));
+        request.setExpirationDate(LocalDate.of(2025, 1, 1).plusDays(random.nextInt(730)));
+        return request;
+    }
+}
@@ -0,0 +1,87 @@
+package com.products.backend.benchmark;
+
+import com.products.backend.model.Product;
+import com.products.backend.repository.ProductRepository;
+import com.products.backend.repository.index.IndexedProduct;
+import com.products.backend.repository.index.ProductFilter;
+import com.products.backend.repository.index.ProductMatch;
+import com.products.backend.repository.store.ColumnarProductStore;
+import com.products.backend.repository.store.HeapProductStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw ProductRepository access paths, on both storage backends.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RepositoryBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    int catalogSize;
+
+    @Param({"heap", "columnar"})
+    String store;
+
+    ProductRepository repository;
+    ProductFilter categoryInStock = new ProductFilter(null, Set.of(2L), true);
+    ProductFilter nameFragment = new ProductFilter("coffee", Set.of(), null);
+
+    @Setup
+    public void setUp() {
+        repository = new ProductRepository("columnar".equals(store) ? new ColumnarProductStore() : new HeapProductStore());
+        CatalogFixtures.products(catalogSize).forEach(repository::save);
+    }
+
+    @Benchmark
+    public List<Product> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public Optional<Product> findById() {
+        return repository.findById(ThreadLocalRandom.current().nextLong(1, catalogSize + 1));
+    }
+
+    // Reads through findAll, which copies every stored row into a fresh Product so callers can change it and save
+    @Benchmark
+    public long sumStockOfCopies() {
+        long stock = 0;
+        for (Product product : repository.findAll()) {
+            stock += product.getStock();
+        }
+        return stock;
+    }
+
+    // The same read over the immutable index rows, the copy-free path list queries, exports and metrics use
+    @Benchmark
+    public long sumStockOfIndexRows() {
+        long stock = 0;
+        for (IndexedProduct row : repository.snapshot()) {
+            stock += row.getStock();
+        }
+        return stock;
+    }
+
+    @Benchmark
+    public int matchCategoryInStock() {
+        try (ProductMatch match = repository.match(categoryInStock)) {
+            return match.size();
+        }
+    }
+
+    @Benchmark
+    public int matchNameFragment() {
+        try (ProductMatch match = repository.match(nameFragment)) {
+            return match.size();
+        }
+    }
+}
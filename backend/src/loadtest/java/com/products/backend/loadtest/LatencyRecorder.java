@@ -0,0 +1,59 @@
+package com.products.backend.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of one endpoint recorded by one worker thread, merged once the run is over.
+ */
+class LatencyRecorder {
+    private long[] latencies = new long[1024];
+    private int count;
+    private int errors;
+
+    void record(long nanos, boolean success) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    void merge(LatencyRecorder other) {
+        for (int i = 0; i < other.count; i++) {
+            record(other.latencies[i], true);
+        }
+        errors += other.errors;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int errors() {
+        return errors;
+    }
+
+    // Latency in milliseconds at the given quantile, nearest-rank
+    double percentile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(quantile * count) - 1;
+        return sorted[Math.max(0, Math.min(rank, count - 1))] / 1_000_000.0;
+    }
+
+    double mean() {
+        if (count == 0) {
+            return 0;
+        }
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += latencies[i];
+        }
+        return total / count / 1_000_000.0;
+    }
+}
@@ -0,0 +1,177 @@
+package com.products.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Load generator for a running backend. Seeds a catalog through POST /products, then replays the
+ * {@link Workload} mix from closed-loop worker threads and writes per-endpoint throughput and latency
+ * percentiles to a JSON report that can be diffed between builds.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.catalogSize=50000 -Dloadtest.threads=16
+ * </pre>
+ */
+public class LoadTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String baseUrl = System.getProperty("loadtest.baseUrl", "http://localhost:9090/api");
+    private final int catalogSize = Integer.getInteger("loadtest.catalogSize", 10_000);
+    private final int threads = Integer.getInteger("loadtest.threads", 8);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 10);
+    private final int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 60);
+    private final long seed = Long.getLong("loadtest.seed", 42);
+    private final File report = new File(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest().run();
+    }
+
+    private void run() throws Exception {
+        Map<Long, String> categories = new LinkedHashMap<>();
+        for (JsonNode category : MAPPER.readTree(client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/categories")).build(),
+                HttpResponse.BodyHandlers.ofString()).body())) {
+            categories.put(category.get("id").asLong(), category.get("name").asText());
+        }
+        if (categories.isEmpty()) {
+            throw new IllegalStateException("No categories found at " + baseUrl + "/categories");
+        }
+
+        Workload workload = new Workload(baseUrl, categories);
+        long started = System.nanoTime();
+        workload.setProductIds(seed(workload));
+        System.out.printf("Seeded %d products in %.1f s%n", catalogSize, (System.nanoTime() - started) / 1e9);
+
+        replay(workload, warmupSeconds, seed);
+        Map<Workload.Endpoint, LatencyRecorder> results = replay(workload, durationSeconds, seed + threads);
+        writeReport(results);
+    }
+
+    private long[] seed(Workload workload) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> batches = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int count = catalogSize / threads + (t < catalogSize % threads ? 1 : 0);
+                SplittableRandom random = new SplittableRandom(seed - t - 1);
+                batches.add(pool.submit(() -> {
+                    long[] ids = new long[count];
+                    for (int i = 0; i < count; i++) {
+                        HttpResponse<String> response = client.send(workload.createProduct(random), HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() / 100 != 2) {
+                            throw new IllegalStateException("Seeding failed with HTTP " + response.statusCode() + ": " + response.body());
+                        }
+                        ids[i] = MAPPER.readTree(response.body()).get("id").asLong();
+                    }
+                    return ids;
+                }));
+            }
+            long[] ids = new long[catalogSize];
+            int offset = 0;
+            for (Future<long[]> batch : batches) {
+                long[] batchIds = batch.get();
+                System.arraycopy(batchIds, 0, ids, offset, batchIds.length);
+                offset += batchIds.length;
+            }
+            return ids;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Map<Workload.Endpoint, LatencyRecorder> replay(Workload workload, int seconds, long runSeed) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Map<Workload.Endpoint, LatencyRecorder>>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                SplittableRandom random = new SplittableRandom(runSeed + t);
+                workers.add(pool.submit(() -> {
+                    Map<Workload.Endpoint, LatencyRecorder> recorders = recorders();
+                    while (System.nanoTime() < deadline) {
+                        Workload.Endpoint endpoint = workload.next(random);
+                        HttpRequest request = workload.request(endpoint, random);
+                        long start = System.nanoTime();
+                        boolean success;
+                        try {
+                            success = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2;
+                        } catch (IOException e) {
+                            success = false;
+                        }
+                        recorders.get(endpoint).record(System.nanoTime() - start, success);
+                    }
+                    return recorders;
+                }));
+            }
+            Map<Workload.Endpoint, LatencyRecorder> merged = recorders();
+            for (Future<Map<Workload.Endpoint, LatencyRecorder>> worker : workers) {
+                worker.get().forEach((endpoint, recorder) -> merged.get(endpoint).merge(recorder));
+            }
+            return merged;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void writeReport(Map<Workload.Endpoint, LatencyRecorder> results) throws IOException {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        LatencyRecorder total = new LatencyRecorder();
+        System.out.printf("%-18s %10s %8s %10s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<Workload.Endpoint, LatencyRecorder> entry : results.entrySet()) {
+            endpoints.put(entry.getKey().name(), summary(entry.getKey().name(), entry.getValue()));
+            total.merge(entry.getValue());
+        }
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("baseUrl", baseUrl);
+        document.put("catalogSize", catalogSize);
+        document.put("threads", threads);
+        document.put("durationSeconds", durationSeconds);
+        document.put("seed", seed);
+        document.put("endpoints", endpoints);
+        document.put("total", summary("TOTAL", total));
+
+        File directory = report.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            directory.mkdirs();
+        }
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(report, document);
+        System.out.println("Report written to " + report.getAbsolutePath());
+    }
+
+    private Map<String, Object> summary(String label, LatencyRecorder recorder) {
+        double throughput = (double) recorder.count() / durationSeconds;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", recorder.count());
+        summary.put("errors", recorder.errors());
+        summary.put("throughputPerSecond", throughput);
+        summary.put("meanMs", recorder.mean());
+        summary.put("p50Ms", recorder.percentile(0.50));
+        summary.put("p99Ms", recorder.percentile(0.99));
+        summary.put("p999Ms", recorder.percentile(0.999));
+        summary.put("maxMs", recorder.percentile(1.0));
+        System.out.printf("%-18s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n", label, recorder.count(), recorder.errors(), throughput,
+                recorder.percentile(0.50), recorder.percentile(0.99), recorder.percentile(0.999), recorder.percentile(1.0));
+        return summary;
+    }
+
+    private static Map<Workload.Endpoint, LatencyRecorder> recorders() {
+        Map<Workload.Endpoint, LatencyRecorder> recorders = new EnumMap<>(Workload.Endpoint.class);
+        for (Workload.Endpoint endpoint : Workload.Endpoint.values()) {
+            recorders.put(endpoint, new LatencyRecorder());
+        }
+        return recorders;
+    }
+}
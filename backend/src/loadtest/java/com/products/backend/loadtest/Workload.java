@@ -0,0 +1,132 @@
+package com.products.backend.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * The request mix replayed against the API. Weights approximate the frontend: most traffic is list
+ * browsing, each mutation is followed by a metrics refresh, and warehouse stock updates trickle in.
+ */
+class Workload {
+    enum Endpoint {
+        LIST_PRODUCTS(60),
+        METRICS(15),
+        MARK_IN_STOCK(10),
+        MARK_OUT_OF_STOCK(5),
+        CREATE_PRODUCT(10);
+
+        final int weight;
+
+        Endpoint(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final String[] WORDS = {
+            "apple", "banana", "milk", "bread", "soap", "shampoo", "aspirin", "charger",
+            "cable", "juice", "coffee", "detergent", "vitamin", "headphones", "rice", "sponge"
+    };
+    private static final String[] SORTS = {"name", "category", "price", "stock", "expirationDate", "category-price", "stock-name"};
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int TOTAL_WEIGHT = List.of(Endpoint.values()).stream().mapToInt(endpoint -> endpoint.weight).sum();
+
+    private final String baseUrl;
+    private final Map<Long, String> categoryNames;
+    private final List<Long> categoryIds;
+    private long[] productIds = new long[0];
+
+    Workload(String baseUrl, Map<Long, String> categoryNames) {
+        this.baseUrl = baseUrl;
+        this.categoryNames = categoryNames;
+        this.categoryIds = List.copyOf(categoryNames.keySet());
+    }
+
+    // Ids of the seeded products, targets of the stock updates
+    void setProductIds(long[] productIds) {
+        this.productIds = productIds;
+    }
+
+    Endpoint next(SplittableRandom random) {
+        int pick = random.nextInt(TOTAL_WEIGHT);
+        for (Endpoint endpoint : Endpoint.values()) {
+            pick -= endpoint.weight;
+            if (pick < 0) {
+                return endpoint;
+            }
+        }
+        return Endpoint.LIST_PRODUCTS;
+    }
+
+    HttpRequest request(Endpoint endpoint, SplittableRandom random) {
+        return switch (endpoint) {
+            case LIST_PRODUCTS -> get("/products?" + listQuery(random));
+            case METRICS -> get("/products/metrics");
+            case MARK_IN_STOCK -> put("/products/" + randomId(random) + "/instock?quantity=" + random.nextInt(1, 100));
+            case MARK_OUT_OF_STOCK -> put("/products/" + randomId(random) + "/outofstock");
+            case CREATE_PRODUCT -> createProduct(random);
+        };
+    }
+
+    HttpRequest createProduct(SplittableRandom random) {
+        Map<String, Object> category = new LinkedHashMap<>();
+        Long categoryId = categoryIds.get(random.nextInt(categoryIds.size()));
+        category.put("id", categoryId);
+        category.put("name", categoryNames.get(categoryId));
+        Map<String, Object> product = new LinkedHashMap<>();
+        product.put("name", WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(1_000_000));
+        product.put("category", category);
+        product.put("unitPrice", Math.round(random.nextDouble(0.5, 500) * 100) / 100.0);
+        product.put("stock", random.nextInt(10) == 0 ? 0 : random.nextInt(1, 200));
+        product.put("expirationDate", random.nextInt(5) == 0 ? null : LocalDate.now().plusDays(random.nextInt(730)).toString());
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/products"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(product)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String listQuery(SplittableRandom random) {
+        StringBuilder query = new StringBuilder();
+        if (random.nextInt(4) == 0) {
+            query.append("name=").append(WORDS[random.nextInt(WORDS.length)], 0, 3).append('&');
+        }
+        if (random.nextInt(3) == 0) {
+            query.append("category=").append(categoryIds.get(random.nextInt(categoryIds.size()))).append('&');
+        }
+        if (random.nextInt(4) == 0) {
+            query.append("available=").append(random.nextBoolean()).append('&');
+        }
+        String sortBy = SORTS[random.nextInt(SORTS.length)];
+        String direction = random.nextBoolean() ? "asc" : "desc";
+        if (sortBy.contains("-")) {
+            direction += random.nextBoolean() ? "-asc" : "-desc";
+        }
+        // Most users stay on the first pages
+        int page = random.nextInt(10) < 8 ? random.nextInt(3) : random.nextInt(50);
+        return query.append("sortBy=").append(sortBy)
+                .append("&direction=").append(direction)
+                .append("&page=").append(page)
+                .append("&size=10")
+                .toString();
+    }
+
+    private long randomId(SplittableRandom random) {
+        return productIds[random.nextInt(productIds.length)];
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest put(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).PUT(HttpRequest.BodyPublishers.noBody()).build();
+    }
+}
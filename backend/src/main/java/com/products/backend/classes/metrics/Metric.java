@@ -6,11 +6,11 @@ import java.util.List;
 
 public class Metric {
     private Category  category;
-    private  int quantity;
+    private  long quantity;
     private double value;
     private double averagePrice;
 
-    public Metric(Category category , int quantity, double value, double averagePrice){
+    public Metric(Category category , long quantity, double value, double averagePrice){
         this.category = category;
         this.quantity = quantity;
         this.value = value;
@@ -33,7 +33,7 @@ public class Metric {
         return this.category;
     }
 
-    public int getQuantity(){
+    public long getQuantity(){
         return  this.quantity;
     }
 
@@ -41,7 +41,7 @@ public class Metric {
         this.category = category;
     }
 
-    public void setQuantity(Integer quantity) {
+    public void setQuantity(long quantity) {
         this.quantity = quantity;
     }
 
@@ -0,0 +1,26 @@
+package com.products.backend.config;
+
+import com.products.backend.repository.store.MappedProductStore;
+import com.products.backend.repository.store.ProductStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnExpression("'${products.store:heap}'.equalsIgnoreCase('mapped')")
+public class MappedStorageConfig {
+
+    // The mapping is forced to disk and unmapped when the context shuts down
+    @Bean(destroyMethod = "close")
+    public ProductStore productStore(@Value("${products.mapped-store.file:data/products.db}") String file,
+                                     @Value("${products.mapped-store.initial-capacity:65536}") int initialCapacity) throws IOException {
+        Path path = Path.of(file).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        return new MappedProductStore(path, initialCapacity);
+    }
+}
@@ -0,0 +1,28 @@
+package com.products.backend.config;
+
+import com.products.backend.repository.CategoryRepository;
+import com.products.backend.repository.ProductRepository;
+import com.products.backend.repository.journal.FileJournal;
+import com.products.backend.repository.journal.RepositoryJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class PersistenceConfig {
+
+    // Replays the journal into both repositories, the services depend on this bean so they start from the restored state
+    @Bean
+    public RepositoryJournal repositoryJournal(ProductRepository products, CategoryRepository categories,
+                                               @Value("${products.persistence.enabled:false}") boolean enabled,
+                                               @Value("${products.persistence.directory:data/journal}") String directory,
+                                               @Value("${products.persistence.snapshot-interval-seconds:300}") long snapshotInterval) throws IOException {
+        if (!enabled) {
+            return RepositoryJournal.NONE;
+        }
+        return new FileJournal(Path.of(directory).toAbsolutePath(), products, categories, snapshotInterval);
+    }
+}
@@ -0,0 +1,26 @@
+package com.products.backend.config;
+
+import com.products.backend.repository.store.ColumnarProductStore;
+import com.products.backend.repository.store.HeapProductStore;
+import com.products.backend.repository.store.ProductStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StorageConfig {
+
+    // products.store=heap keeps Product beans in a map, columnar packs them into primitive arrays; either way
+    // the indexes hold their own row object per product
+    // products.store=mapped is configured by MappedStorageConfig
+    @Bean
+    @ConditionalOnExpression("!'${products.store:heap}'.equalsIgnoreCase('mapped')")
+    public ProductStore productStore(@Value("${products.store:heap}") String store) {
+        return switch (store.toLowerCase()) {
+            case "heap" -> new HeapProductStore();
+            case "columnar" -> new ColumnarProductStore();
+            default -> throw new IllegalArgumentException("Unknown products.store: " + store);
+        };
+    }
+}
@@ -1,28 +1,60 @@
 package com.products.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.products.backend.classes.metrics.Metric;
+import com.products.backend.dto.product.CacheStats;
+import com.products.backend.dto.product.ImportSummary;
 import com.products.backend.dto.product.MetricsResponse;
 import com.products.backend.dto.product.PaginatedProducts;
 import com.products.backend.dto.product.ProductRequest;
 import com.products.backend.dto.product.ProductResponse;
+import com.products.backend.dto.product.StockUpdate;
+import com.products.backend.dto.product.StockUpdateResult;
 import com.products.backend.model.Category;
+import com.products.backend.service.catalog.CatalogVersion;
 import com.products.backend.service.product.IProductService;
+import com.products.backend.service.product.exporting.ExportFormat;
+import com.products.backend.service.product.exporting.ProductExportWriter;
+import com.products.backend.service.product.importing.ImportFormat;
+import com.products.backend.service.product.importing.ProductImporter;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/products")
 public class ProductController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final IProductService productService;
+    private final ProductImporter importer;
+    private final ObjectMapper mapper;
+    private final CatalogVersion catalogVersion;
 
-    public ProductController(IProductService productService) {
+    public ProductController(IProductService productService, ProductImporter importer, ObjectMapper mapper,
+                             CatalogVersion catalogVersion) {
         this.productService = productService;
+        this.catalogVersion = catalogVersion;
+        this.importer = importer;
+        this.mapper = mapper;
     }
 
+    /**
+     * One page of products. page and size address it by offset, which walks past the rows before it, so clients
+     * reading far into a result should send the nextCursor of the previous page, which seeks instead.
+     */
     @GetMapping
     public ResponseEntity<PaginatedProducts> getAllProducts(
             @RequestParam(required = false) String name,
@@ -31,18 +63,64 @@ public class ProductController {
             @RequestParam (required = false)String sortBy,
             @RequestParam (required = false)String direction,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            WebRequest request
     ) {
-        PaginatedProducts products = productService.getAllProducts(name, category, available, sortBy, direction, page, size);
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        PaginatedProducts products = productService.getAllProducts(name, category, available, sortBy, direction, page, size, cursor);
+
+
+        return revalidated(etag).body(products);
+    }
 
+    /**
+     * Streams every product matching the same filters and sort as GET /products, as NDJSON (default) or CSV.
+     * Rows are read in keyset chunks of the sorted index walk and written through a fixed-size buffer.
+     * Exports the service would refuse are answered with 400 here, before the streamed 200 is committed.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(required = false) String name,
+            @RequestParam (required = false)String category,
+            @RequestParam (required = false)Boolean available,
+            @RequestParam (required = false)String sortBy,
+            @RequestParam (required = false)String direction,
+            @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        productService.checkExportable(name, category, available, sortBy, direction);
+        StreamingResponseBody body = out -> {
+            ProductExportWriter writer = new ProductExportWriter(out, exportFormat, mapper);
+            productService.exportProducts(name, category, available, sortBy, direction, writer::write);
+            writer.finish();
+        };
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + exportFormat.name().toLowerCase() + "\"")
+                .body(body);
+    }
 
-        return ResponseEntity.ok(products);
+    // Type-ahead suggestions, served from the name trie without running a product query
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggestNames(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(productService.suggestNames(prefix, limit));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id, WebRequest request) {
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         return productService.getProductById(id)
-                .map(ResponseEntity::ok)
+                .map(product -> revalidated(etag).body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -52,6 +130,24 @@ public class ProductController {
         return ResponseEntity.ok(created);
     }
 
+    /**
+     * Bulk import from a text/csv or application/x-ndjson body. The response is NDJSON streamed while the body is
+     * read: one {"line", "error"} object per rejected row, then a final {"imported", "failed"} summary.
+     * The body stream is taken here, on the request thread, the async response only reads from it.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<StreamingResponseBody> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream input
+    ) {
+        ImportFormat format = ImportFormat.fromContentType(contentType);
+        StreamingResponseBody body = out -> {
+            ImportSummary summary = importer.importProducts(input, format, error -> writeLine(out, error));
+            writeLine(out, summary);
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponse> updateProduct(
             @PathVariable Long id,
@@ -80,6 +176,22 @@ public class ProductController {
         return ResponseEntity.ok(updated);
     }
 
+    // Relative stock change, e.g. delta=-1 for a sale; floorAtZero clamps instead of rejecting an oversell
+    @PatchMapping("/{id}/stock")
+    public ResponseEntity<ProductResponse> adjustStock(
+            @PathVariable Long id,
+            @RequestParam int delta,
+            @RequestParam(defaultValue = "false") boolean floorAtZero
+    ) {
+        return ResponseEntity.ok(productService.adjustStock(id, delta, floorAtZero));
+    }
+
+    // Batch form of instock/outofstock: a JSON array of {"id", "quantity"} items, quantity 0 means out of stock
+    @PutMapping("/stock")
+    public ResponseEntity<StockUpdateResult> updateStock(@RequestBody List<StockUpdate> updates) {
+        return ResponseEntity.ok(productService.updateStock(updates));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<ProductResponse> deleteProduct(@PathVariable Long id){
         ProductResponse deleted = productService.deleteProductById(id);
@@ -87,8 +199,32 @@ public class ProductController {
     }
 
     @GetMapping("/metrics")
-    public ResponseEntity<List<Metric>> getMetrics(){
+    public ResponseEntity<List<Metric>> getMetrics(WebRequest request){
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         List<Metric> metrics = this.productService.getGeneralMetrics();
-        return  ResponseEntity.ok(metrics);
+        return  revalidated(etag).body(metrics);
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<CacheStats> getCacheStats() {
+        return ResponseEntity.ok(productService.getCacheStats());
+    }
+
+    // Tagged with the catalog version, clients may keep the body but revalidate it on every use
+    private ResponseEntity.BodyBuilder revalidated(String etag) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache());
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(mapper.writeValueAsBytes(value));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,51 @@
+package com.products.backend.dto.product;
+
+// Counters of the GET /products query cache since startup
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long invalidations;
+    private final int size;
+    private final long rows;
+
+    public CacheStats(long hits, long misses, long evictions, long invalidations, int size, long rows) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+        this.size = size;
+        this.rows = rows;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    // Entries pushed out, or refused admission, to stay within the size bound
+    public long getEvictions() {
+        return evictions;
+    }
+
+    // Entries dropped because a write could have changed their result
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getHitRate() {
+        return hits + misses > 0 ? (double) hits / (hits + misses) : 0;
+    }
+
+    // Rows held by all cached results together, bounded by products.cache.max-rows
+    public long getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,20 @@
+package com.products.backend.dto.product;
+
+// A rejected row of a bulk import, line numbers start at 1 and include the CSV header
+public class ImportError {
+    private final long line;
+    private final String error;
+
+    public ImportError(long line, String error) {
+        this.line = line;
+        this.error = error;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
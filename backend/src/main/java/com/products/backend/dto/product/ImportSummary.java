@@ -0,0 +1,19 @@
+package com.products.backend.dto.product;
+
+public class ImportSummary {
+    private final long imported;
+    private final long failed;
+
+    public ImportSummary(long imported, long failed) {
+        this.imported = imported;
+        this.failed = failed;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+}
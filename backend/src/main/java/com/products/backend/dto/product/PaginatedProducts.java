@@ -7,6 +7,7 @@ public class PaginatedProducts {
     private  int totalPages;
     private int page;
     private int size;
+    private String nextCursor;
 
 
     public PaginatedProducts(List<ProductResponse> content, int page, int size, int total) {
@@ -14,7 +15,7 @@ public class PaginatedProducts {
         this.totalElements = total;
         this.page = page;
         this.size = size;
-        this.totalPages = (int) Math.ceil((double) totalElements / size);
+        this.totalPages = size > 0 ? (int) Math.ceil((double) totalElements / size) : 0;
     }
 
     public int getTotalElements(){
@@ -48,4 +49,13 @@ public class PaginatedProducts {
     public  int getSize(){
         return  this.size;
     }
+
+    // Pass back as the cursor parameter to read the following page, null on the last page
+    public String getNextCursor(){
+        return this.nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor){
+        this.nextCursor = nextCursor;
+    }
 }
@@ -0,0 +1,31 @@
+package com.products.backend.dto.product;
+
+// One item of a batch stock update, a quantity of 0 marks the product out of stock
+public class StockUpdate {
+    private Long id;
+    private Integer quantity;
+
+    public StockUpdate() {
+    }
+
+    public StockUpdate(Long id, Integer quantity) {
+        this.id = id;
+        this.quantity = quantity;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,29 @@
+package com.products.backend.dto.product;
+
+import java.util.List;
+
+// Outcome of a batch stock update: how many items were applied and which ones were not
+public class StockUpdateResult {
+    private final int updated;
+    private final List<Long> notFound;
+    private final List<Integer> invalid;
+
+    public StockUpdateResult(int updated, List<Long> notFound, List<Integer> invalid) {
+        this.updated = updated;
+        this.notFound = notFound;
+        this.invalid = invalid;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public List<Long> getNotFound() {
+        return notFound;
+    }
+
+    // Zero-based positions in the request of items without an id or with a missing or negative quantity
+    public List<Integer> getInvalid() {
+        return invalid;
+    }
+}
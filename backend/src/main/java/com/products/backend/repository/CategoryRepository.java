@@ -1,6 +1,8 @@
 package com.products.backend.repository;
 
 import com.products.backend.model.Category;
+import com.products.backend.repository.journal.JournalRecords;
+import com.products.backend.repository.journal.RepositoryJournal;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,8 +14,20 @@ import java.util.concurrent.atomic.AtomicLong;
 public class CategoryRepository {
     private final Map<Long, Category> categoryRepository = new ConcurrentHashMap<>();
     private final AtomicLong idGenerator = new AtomicLong(0);
+    private volatile RepositoryJournal journal = RepositoryJournal.NONE;
 
+    public void setJournal(RepositoryJournal journal) {
+        this.journal = journal;
+    }
+
+    // Ids up to this one are never handed out again, used when replaying the journal
+    public void reserveIds(long lastId) {
+        idGenerator.accumulateAndGet(lastId, Math::max);
+    }
 
+    public long lastId() {
+        return idGenerator.get();
+    }
 
     public List<Category> findAll() {
         return List.copyOf(categoryRepository.values());
@@ -27,12 +41,18 @@ public class CategoryRepository {
         Category category = new Category();
         category.setId(idGenerator.incrementAndGet());
         category.setName(name);
-        categoryRepository.put(category.getId(), category);
+        journal.write(() -> JournalRecords.putCategory(category), () -> categoryRepository.put(category.getId(), category));
         return category;
     }
 
+    // Puts back a category under its original id, used when replaying the journal
+    public void restore(Category category) {
+        reserveIds(category.getId());
+        categoryRepository.put(category.getId(), category);
+    }
+
     public void delete(Long id){
-        categoryRepository.remove(id);
+        journal.write(() -> JournalRecords.deleteCategory(id), () -> categoryRepository.remove(id));
     }
 
     public void setPlaceHolders(){
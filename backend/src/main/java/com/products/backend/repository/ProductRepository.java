@@ -1,38 +1,129 @@
 package com.products.backend.repository;
 
 import com.products.backend.model.Product;
+import com.products.backend.repository.index.IndexedProduct;
+import com.products.backend.repository.index.ProductFilter;
+import com.products.backend.repository.index.ProductIndexes;
+import com.products.backend.repository.index.ProductMatch;
+import com.products.backend.repository.journal.JournalRecords;
+import com.products.backend.repository.journal.RepositoryJournal;
+import com.products.backend.repository.store.HeapProductStore;
+import com.products.backend.repository.store.ProductStore;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 @Repository
 public class ProductRepository {
-    private final Map<Long, Product> productStore = new ConcurrentHashMap<>();
+    private final ProductStore productStore;
     private final AtomicLong idGenerator = new AtomicLong(0);
+    private final ProductIndexes indexes = new ProductIndexes();
+    private volatile RepositoryJournal journal = RepositoryJournal.NONE;
+
+    public ProductRepository() {
+        this(new HeapProductStore());
+    }
+
+    @Autowired
+    public ProductRepository(ProductStore productStore) {
+        this.productStore = productStore;
+        // Persistent stores come back with products in them, the indexes and id sequence are rebuilt from their contents
+        for (Product product : productStore.values()) {
+            indexes.index(product);
+            idGenerator.accumulateAndGet(product.getId(), Math::max);
+        }
+    }
+
+    public void setJournal(RepositoryJournal journal) {
+        this.journal = journal;
+    }
+
+    // Ids up to this one are never handed out again, used when replaying the journal
+    public void reserveIds(long lastId) {
+        idGenerator.accumulateAndGet(lastId, Math::max);
+    }
+
+    public long lastId() {
+        return idGenerator.get();
+    }
 
     public List<Product> findAll() {
-        return new ArrayList<>(productStore.values());
+        return productStore.values();
     }
 
     public Optional<Product> findById(Long id) {
         return Optional.ofNullable(productStore.get(id));
     }
 
+    // Resolves the filter against the secondary indexes at the current version, the caller closes the match
+    public ProductMatch match(ProductFilter filter) {
+        return indexes.match(filter);
+    }
+
+    // Matching products in id order
+    public List<Product> findByFilter(ProductFilter filter) {
+        try (ProductMatch match = match(filter)) {
+            return match.products();
+        }
+    }
+
+    // Every product as of one version, for whole-catalog aggregations
+    public IndexedProduct[] snapshot() {
+        return indexes.snapshot();
+    }
+
+    public List<String> suggestNames(String prefix, int limit) {
+        return indexes.suggest(prefix, limit);
+    }
+
+    public int count() {
+        return productStore.size();
+    }
+
     public Product save(Product product) {
         if (product.getId() == null) {
             product.setId(idGenerator.incrementAndGet());
+        } else {
+            idGenerator.accumulateAndGet(product.getId(), Math::max);
         }
-        productStore.put(product.getId(), product);
+        productStore.check(product);
+        journal.write(() -> JournalRecords.putProduct(product), () -> {
+            productStore.put(product);
+            indexes.index(product);
+        });
         return product;
     }
 
+    // Saves a batch with one journal sync and one pass over the indexes
+    public List<Product> saveAll(List<Product> products) {
+        for (Product product : products) {
+            if (product.getId() == null) {
+                product.setId(idGenerator.incrementAndGet());
+            } else {
+                idGenerator.accumulateAndGet(product.getId(), Math::max);
+            }
+            productStore.check(product);
+        }
+        journal.writeAll(() -> products.stream().map(JournalRecords::putProduct).toList(), () -> {
+            products.forEach(productStore::put);
+            indexes.indexAll(products);
+        });
+        return products;
+    }
+
     public void delete(Long id) {
-        productStore.remove(id);
+        journal.write(() -> JournalRecords.deleteProduct(id), () -> {
+            productStore.remove(id);
+            indexes.remove(id);
+        });
     }
 
     public void clear() {
-        productStore.clear();
+        journal.write(JournalRecords::clearProducts, () -> {
+            productStore.clear();
+            indexes.clear();
+        });
     }
 }
@@ -0,0 +1,60 @@
+package com.products.backend.repository.index;
+
+import java.util.Arrays;
+
+/**
+ * Byte-comparable form of a string under String.CASE_INSENSITIVE_ORDER. Each code point is folded the way that
+ * comparator folds it, upper then lower case, and written as UTF-8, whose unsigned byte order is code point
+ * order. ASCII names take one byte per char.
+ */
+public final class CollationKey {
+
+    private CollationKey() {
+    }
+
+    public static byte[] of(String value) {
+        int bytes = 0;
+        for (int i = 0; i < value.length(); ) {
+            int codePoint = value.codePointAt(i);
+            i += Character.charCount(codePoint);
+            int folded = fold(codePoint);
+            bytes += folded < 0x80 ? 1 : folded < 0x800 ? 2 : folded < 0x10000 ? 3 : 4;
+        }
+        byte[] key = new byte[bytes];
+        int at = 0;
+        for (int i = 0; i < value.length(); ) {
+            int codePoint = value.codePointAt(i);
+            i += Character.charCount(codePoint);
+            int folded = fold(codePoint);
+            if (folded < 0x80) {
+                key[at++] = (byte) folded;
+                continue;
+            }
+            if (folded < 0x800) {
+                key[at++] = (byte) (0xC0 | folded >> 6);
+            } else if (folded < 0x10000) {
+                // Lone surrogates are written like any other char of the range
+                key[at++] = (byte) (0xE0 | folded >> 12);
+                key[at++] = (byte) (0x80 | (folded >> 6) & 0x3F);
+            } else {
+                key[at++] = (byte) (0xF0 | folded >> 18);
+                key[at++] = (byte) (0x80 | (folded >> 12) & 0x3F);
+                key[at++] = (byte) (0x80 | (folded >> 6) & 0x3F);
+            }
+            key[at++] = (byte) (0x80 | folded & 0x3F);
+        }
+        return key;
+    }
+
+    public static int compare(byte[] a, byte[] b) {
+        return Arrays.compareUnsigned(a, b);
+    }
+
+    // Some non-ASCII chars fold into ASCII, the Kelvin sign folds to 'k'
+    private static int fold(int codePoint) {
+        if (codePoint < 0x80) {
+            return codePoint >= 'A' && codePoint <= 'Z' ? codePoint + ('a' - 'A') : codePoint;
+        }
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+}
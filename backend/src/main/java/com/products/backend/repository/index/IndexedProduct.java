@@ -0,0 +1,178 @@
+package com.products.backend.repository.index;
+
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable version of a product as the indexes saw it at one write. Each write creates a new version that
+ * links to the one it replaced, so a reader holding an older version number can still find the row and
+ * the sort positions it had back then, until no reader needs them anymore.
+ */
+public class IndexedProduct {
+    private static final int NULL_NAME = 1;
+    private static final int NULL_CATEGORY_NAME = 2;
+    private static final int NULL_PRICE = 4;
+    private static final int NULL_STOCK = 8;
+
+    private final long id;
+    private final long version;
+    private final boolean deleted;
+    private final String name;
+    private final String searchName;
+    // Collation keys of the name and the category name, compared in place of the case-insensitive strings
+    private final byte[] nameKey;
+    private final Long categoryId;
+    private final String categoryName;
+    private final byte[] categoryKey;
+    private final double unitPrice;
+    private final int stock;
+    private final LocalDate expirationDate;
+    private final LocalDate createdAt;
+    private final LocalDate updatedAt;
+    private final int nulls;
+
+    // Version this one replaced, dropped once every reader is past this version
+    IndexedProduct previous;
+    // Entries standing for this version in each sorted index, null when it is this entry for every field
+    IndexedProduct[] sortedAs;
+    // Version at which this entry left each sorted index, null while it is in all of them
+    volatile long[] retiredAt;
+
+    private IndexedProduct(long id, long version, boolean deleted, String name, byte[] nameKey, Long categoryId,
+                           String categoryName, byte[] categoryKey, double unitPrice, int stock,
+                           LocalDate expirationDate, LocalDate createdAt, LocalDate updatedAt, int nulls) {
+        this.id = id;
+        this.version = version;
+        this.deleted = deleted;
+        this.name = name;
+        this.searchName = name.toLowerCase();
+        this.nameKey = nameKey;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.categoryKey = categoryKey;
+        this.unitPrice = unitPrice;
+        this.stock = stock;
+        this.expirationDate = expirationDate;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.nulls = nulls;
+    }
+
+    public static IndexedProduct of(Product product) {
+        return of(product, 0);
+    }
+
+    static IndexedProduct of(Product product, long version) {
+        Category category = product.getCategory();
+        int nulls = (product.getName() == null ? NULL_NAME : 0)
+                | (category != null && category.getName() == null ? NULL_CATEGORY_NAME : 0)
+                | (product.getUnitPrice() == null ? NULL_PRICE : 0)
+                | (product.getStock() == null ? NULL_STOCK : 0);
+        String name = product.getName() != null ? product.getName() : "";
+        Long categoryId = category != null ? category.getId() : null;
+        String categoryName = category != null && category.getName() != null ? category.getName() : "";
+        double unitPrice = product.getUnitPrice() != null ? product.getUnitPrice() : 0;
+        int stock = product.getStock() != null ? product.getStock() : 0;
+        return new IndexedProduct(product.getId(), version, false, name, CollationKey.of(name), categoryId,
+                categoryName, CollationKey.of(categoryName), unitPrice, stock,
+                product.getExpirationDate(), product.getCreatedAt(), product.getUpdatedAt(), nulls);
+    }
+
+    // Marks the product as deleted from the given version on
+    IndexedProduct tombstone(long version) {
+        return new IndexedProduct(id, version, true, name, nameKey, categoryId, categoryName, categoryKey,
+                unitPrice, stock, expirationDate, createdAt, updatedAt, nulls);
+    }
+
+    // Same keys under another id and version, used as a seek position inside a run of equal keys
+    IndexedProduct seek(long id, long version) {
+        return new IndexedProduct(id, version, false, name, nameKey, categoryId, categoryName, categoryKey,
+                unitPrice, stock, expirationDate, createdAt, updatedAt, nulls);
+    }
+
+    // A fresh Product holding this version's values
+    public Product toProduct() {
+        Product product = new Product();
+        product.setId(id);
+        product.setName((nulls & NULL_NAME) != 0 ? null : name);
+        if (categoryId != null) {
+            Category category = new Category();
+            category.setId(categoryId);
+            category.setName((nulls & NULL_CATEGORY_NAME) != 0 ? null : categoryName);
+            product.setCategory(category);
+        }
+        product.setUnitPrice((nulls & NULL_PRICE) != 0 ? null : unitPrice);
+        product.setStock((nulls & NULL_STOCK) != 0 ? null : stock);
+        product.setExpirationDate(expirationDate);
+        product.setCreatedAt(createdAt);
+        product.setUpdatedAt(updatedAt);
+        return product;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    // Write sequence number this version was created at
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Lower-cased product name, used for substring matching
+    public String getSearchName() {
+        return searchName;
+    }
+
+    // Sort key of the name, see CollationKey
+    public byte[] getNameKey() {
+        return nameKey;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public byte[] getCategoryKey() {
+        return categoryKey;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public LocalDate getExpirationDate() {
+        return expirationDate;
+    }
+
+    public boolean isInStock() {
+        return stock > 0;
+    }
+
+    // The entry that represents this version in the sorted index of the field
+    IndexedProduct sortedAs(SortField field) {
+        return sortedAs != null ? sortedAs[field.ordinal()] : this;
+    }
+
+    // Whether this entry is part of the field's sorted index as of the given version
+    boolean visibleAt(SortField field, long readVersion) {
+        return version <= readVersion && (retiredAt == null || retiredAt[field.ordinal()] > readVersion);
+    }
+}
@@ -0,0 +1,31 @@
+package com.products.backend.repository.index;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits lower-cased product names and search queries into words, on anything that is not a letter or a digit.
+ */
+public final class NameTokens {
+
+    private NameTokens() {
+    }
+
+    // Distinct words in the order they first appear
+    public static List<String> split(String value) {
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= value.length(); i++) {
+            boolean wordChar = i < value.length() && Character.isLetterOrDigit(value.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(value.substring(start, i));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+}
@@ -0,0 +1,165 @@
+package com.products.backend.repository.index;
+
+import java.util.*;
+
+/**
+ * Prefix trie over lower-cased product names, for type-ahead suggestions. Every name is reachable from its
+ * start and from the start of each of its words, so "app" suggests both "Apple Pie" and "Green Apple".
+ * Children are kept in sorted parallel arrays, which keeps nodes small and walks in alphabetical order.
+ * Not thread-safe, ProductIndexes guards it with its lock.
+ */
+public class NameTrie {
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+
+    private static final class Node {
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        // Names whose key ends here, with how many products carry each
+        private Map<String, Integer> names;
+        // Keys ending in this subtree, a node left with none is pruned
+        private int keys;
+
+        private Node child(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            return at >= 0 ? children[at] : null;
+        }
+
+        private Node addChild(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            if (at >= 0) {
+                return children[at];
+            }
+            int insert = -at - 1;
+            char[] grownLabels = new char[labels.length + 1];
+            Node[] grownChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, grownLabels, 0, insert);
+            System.arraycopy(children, 0, grownChildren, 0, insert);
+            System.arraycopy(labels, insert, grownLabels, insert + 1, labels.length - insert);
+            System.arraycopy(children, insert, grownChildren, insert + 1, children.length - insert);
+            Node child = new Node();
+            grownLabels[insert] = label;
+            grownChildren[insert] = child;
+            labels = grownLabels;
+            children = grownChildren;
+            return child;
+        }
+
+        private void removeChild(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            if (labels.length == 1) {
+                labels = NO_LABELS;
+                children = NO_CHILDREN;
+                return;
+            }
+            char[] shrunkLabels = new char[labels.length - 1];
+            Node[] shrunkChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, shrunkLabels, 0, at);
+            System.arraycopy(children, 0, shrunkChildren, 0, at);
+            System.arraycopy(labels, at + 1, shrunkLabels, at, labels.length - at - 1);
+            System.arraycopy(children, at + 1, shrunkChildren, at, children.length - at - 1);
+            labels = shrunkLabels;
+            children = shrunkChildren;
+        }
+    }
+
+    public void add(String name) {
+        for (String key : keys(name)) {
+            Node node = root;
+            node.keys++;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.addChild(key.charAt(i));
+                node.keys++;
+            }
+            if (node.names == null) {
+                node.names = new TreeMap<>();
+            }
+            node.names.merge(name, 1, Integer::sum);
+        }
+    }
+
+    public void remove(String name) {
+        for (String key : keys(name)) {
+            if (!contains(key, name)) {
+                continue;
+            }
+            Node node = root;
+            node.keys--;
+            boolean pruned = false;
+            for (int i = 0; i < key.length() && !pruned; i++) {
+                Node child = node.child(key.charAt(i));
+                if (--child.keys == 0) {
+                    node.removeChild(key.charAt(i));
+                    pruned = true;
+                } else {
+                    node = child;
+                }
+            }
+            if (!pruned && node.names.merge(name, -1, Integer::sum) == 0) {
+                node.names.remove(name);
+                if (node.names.isEmpty()) {
+                    node.names = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Up to limit distinct names with the given prefix at their start or at the start of one of their words,
+     * in alphabetical order of the matched key.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        Node node = root;
+        String key = prefix.toLowerCase();
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        Set<String> names = new LinkedHashSet<>();
+        if (node != null) {
+            collect(node, names, limit);
+        }
+        return new ArrayList<>(names);
+    }
+
+    private static void collect(Node node, Set<String> names, int limit) {
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty() && names.size() < limit) {
+            Node next = pending.pop();
+            if (next.names != null) {
+                for (String name : next.names.keySet()) {
+                    names.add(name);
+                    if (names.size() == limit) {
+                        return;
+                    }
+                }
+            }
+            for (int i = next.children.length - 1; i >= 0; i--) {
+                pending.push(next.children[i]);
+            }
+        }
+    }
+
+    private boolean contains(String key, String name) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node != null && node.names != null && node.names.containsKey(name);
+    }
+
+    // The lower-cased name from its start and from the start of each later word
+    private static Set<String> keys(String name) {
+        String lower = name.toLowerCase();
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(lower);
+        for (int i = 1; i < lower.length(); i++) {
+            if (Character.isLetterOrDigit(lower.charAt(i)) && !Character.isLetterOrDigit(lower.charAt(i - 1))) {
+                keys.add(lower.substring(i));
+            }
+        }
+        return keys;
+    }
+}
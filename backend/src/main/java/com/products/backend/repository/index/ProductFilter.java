@@ -0,0 +1,57 @@
+package com.products.backend.repository.index;
+
+import java.util.List;
+import java.util.Set;
+
+public class ProductFilter {
+    private final String name;
+    private final List<String> terms;
+    private final Set<Long> categoryIds;
+    private final Boolean available;
+
+    public ProductFilter(String name, Set<Long> categoryIds, Boolean available) {
+        this(name != null && !name.isBlank() ? name.toLowerCase() : null, List.of(), categoryIds, available);
+    }
+
+    private ProductFilter(String name, List<String> terms, Set<Long> categoryIds, Boolean available) {
+        this.name = name;
+        this.terms = terms;
+        this.categoryIds = categoryIds != null ? categoryIds : Set.of();
+        this.available = available;
+    }
+
+    public static ProductFilter none() {
+        return new ProductFilter(null, Set.of(), null);
+    }
+
+    /**
+     * Word search instead of a name fragment: every word of the query has to start a word of the name,
+     * or, from three characters on, appear anywhere in it. Word order does not matter.
+     */
+    public static ProductFilter search(String query, Set<Long> categoryIds, Boolean available) {
+        List<String> terms = query != null ? NameTokens.split(query.toLowerCase()) : List.of();
+        return new ProductFilter(null, terms, categoryIds, available);
+    }
+
+    // Lower-cased name fragment, or null when not filtering by name
+    public String getName() {
+        return name;
+    }
+
+    // Lower-cased query words, empty unless searching
+    public List<String> getTerms() {
+        return terms;
+    }
+
+    public Set<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public Boolean getAvailable() {
+        return available;
+    }
+
+    public boolean isEmpty() {
+        return name == null && terms.isEmpty() && categoryIds.isEmpty() && available == null;
+    }
+}
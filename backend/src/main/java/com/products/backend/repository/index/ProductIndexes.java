@@ -0,0 +1,475 @@
+package com.products.backend.repository.index;
+
+import com.products.backend.model.Product;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Secondary indexes over the product store. Every structure is keyed by product id, used as a bit position,
+ * so a filtered query is a handful of bitset intersections instead of a scan over every product.
+ * Names are indexed both by trigram, for fragments, and by word in a sorted map, so search terms of any
+ * length resolve through word prefixes. Each sort field also keeps a skip list ordered by (key, id, version) so sorted pages can be walked instead of sorted.
+ *
+ * Reads are multi-versioned: every write gets the next version number, and a match remembers the version it
+ * was taken at. Replaced rows and sort entries stay reachable until no open match is older than the write that
+ * replaced them, so a request sees one version of the catalog while writers carry on.
+ */
+public class ProductIndexes {
+    private static final int GRAM = 3;
+    private static final int FIELDS = SortField.values().length;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Newest version of every product, deleted ones stay as tombstones while older readers may need them
+    private final Map<Long, IndexedProduct> indexed = new ConcurrentHashMap<>();
+    private final Map<Long, BitSet> byCategory = new HashMap<>();
+    private final Map<String, BitSet> byTrigram = new HashMap<>();
+    private final NavigableMap<String, BitSet> byToken = new TreeMap<>();
+    private final NameTrie names = new NameTrie();
+    private final BitSet inStock = new BitSet();
+    private final BitSet outOfStock = new BitSet();
+    private final Map<SortField, NavigableSet<IndexedProduct>> sorted = new EnumMap<>(SortField.class);
+    // Versions held by open matches, with how many matches hold each
+    private final ConcurrentSkipListMap<Long, Integer> readers = new ConcurrentSkipListMap<>();
+    // What each write superseded, in write order, reclaimed once every reader is at or past that write
+    private final ArrayDeque<Garbage> garbage = new ArrayDeque<>();
+    private volatile long version;
+    private int size;
+
+    private record Garbage(long version, Runnable reclaim) {
+    }
+
+    public ProductIndexes() {
+        for (SortField field : SortField.values()) {
+            sorted.put(field, new ConcurrentSkipListSet<>(field.keyOrder()
+                    .thenComparingLong(IndexedProduct::getId)
+                    .thenComparingLong(IndexedProduct::getVersion)));
+        }
+    }
+
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            put(product);
+            reclaim();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Indexes a batch under a single acquisition of the write lock, readers see all of it or none
+    public void indexAll(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            products.forEach(this::put);
+            reclaim();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            delete(id);
+            reclaim();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (IndexedProduct entry : List.copyOf(indexed.values())) {
+                delete(entry.getId());
+            }
+            reclaim();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every product as of a single version. Only registering the version takes the lock,
+     * the copy itself runs while writers go on.
+     */
+    public IndexedProduct[] snapshot() {
+        long readVersion;
+        lock.readLock().lock();
+        try {
+            readVersion = register();
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            List<IndexedProduct> rows = new ArrayList<>(indexed.size());
+            for (IndexedProduct newest : indexed.values()) {
+                IndexedProduct row = at(newest, readVersion);
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+            return rows.toArray(IndexedProduct[]::new);
+        } finally {
+            release(readVersion);
+        }
+    }
+
+    /**
+     * Ids of the products matching every criterion of the filter, as of the current version.
+     * The match must be closed so the versions it holds can be reclaimed.
+     */
+    public ProductMatch match(ProductFilter filter) {
+        lock.readLock().lock();
+        try {
+            return new ProductMatch(matchingIds(filter), register(), size, this);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Product names starting with the prefix or with a word starting with it, for type-ahead
+    public List<String> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return names.suggest(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The product as it was at the given version, null when it did not exist then
+    IndexedProduct rowAt(long id, long readVersion) {
+        return at(indexed.get(id), readVersion);
+    }
+
+    /**
+     * Products in the order of the given field. The skip lists are walked without taking the lock and hold
+     * entries of several versions, callers keep those visible at their read version.
+     */
+    NavigableSet<IndexedProduct> sorted(SortField field, boolean descending) {
+        NavigableSet<IndexedProduct> order = sorted.get(field);
+        return descending ? order.descendingSet() : order;
+    }
+
+    void release(long readVersion) {
+        readers.computeIfPresent(readVersion, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    // Called with the read lock held, so no write can reclaim what this version needs before it is registered
+    private long register() {
+        long readVersion = version;
+        readers.merge(readVersion, 1, Integer::sum);
+        return readVersion;
+    }
+
+    private BitSet matchingIds(ProductFilter filter) {
+        List<BitSet> criteria = new ArrayList<>();
+
+        if (!filter.getCategoryIds().isEmpty()) {
+            BitSet members = new BitSet();
+            for (Long categoryId : filter.getCategoryIds()) {
+                BitSet category = byCategory.get(categoryId);
+                if (category != null) {
+                    members.or(category);
+                }
+            }
+            criteria.add(members);
+        }
+
+        if (filter.getAvailable() != null) {
+            criteria.add(filter.getAvailable() ? inStock : outOfStock);
+        }
+
+        String name = filter.getName();
+        if (name != null) {
+            for (String gram : grams(name)) {
+                BitSet members = byTrigram.get(gram);
+                if (members == null) {
+                    return new BitSet();
+                }
+                criteria.add(members);
+            }
+        }
+
+        BitSet result = intersectSmallestFirst(criteria);
+        if (result == null) {
+            result = (BitSet) inStock.clone();
+            result.or(outOfStock);
+        }
+
+        // Terms and substrings need the names checked, so they only look at what the indexes left
+        for (String term : filter.getTerms()) {
+            if (result.isEmpty()) {
+                return result;
+            }
+            result.and(matchingTerm(term, result));
+        }
+
+        // Trigrams only narrow the candidates, the substring still has to be confirmed.
+        if (name != null) {
+            for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+                if (!indexed.get((long) id).getSearchName().contains(name)) {
+                    result.clear(id);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Intersects the sets starting from the rarest one, stopping as soon as nothing is left; null when there are none
+    private static BitSet intersectSmallestFirst(List<BitSet> sets) {
+        if (sets.isEmpty()) {
+            return null;
+        }
+        int[] cardinalities = new int[sets.size()];
+        Integer[] order = new Integer[sets.size()];
+        for (int i = 0; i < order.length; i++) {
+            cardinalities[i] = sets.get(i).cardinality();
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> cardinalities[i]));
+        BitSet result = (BitSet) sets.get(order[0]).clone();
+        for (int i = 1; i < order.length && !result.isEmpty(); i++) {
+            result.and(sets.get(order[i]));
+        }
+        return result;
+    }
+
+    // Ids among the candidates whose name has a word starting with the term or, for terms long enough to have
+    // trigrams, contains it
+    private BitSet matchingTerm(String term, BitSet candidates) {
+        BitSet hits = new BitSet();
+        for (BitSet members : byToken.subMap(term, true, term + Character.MAX_VALUE, true).values()) {
+            hits.or(members);
+        }
+        hits.and(candidates);
+        if (term.length() < GRAM) {
+            return hits;
+        }
+        BitSet inside = (BitSet) candidates.clone();
+        for (String gram : grams(term)) {
+            BitSet members = byTrigram.get(gram);
+            if (members == null) {
+                return hits;
+            }
+            inside.and(members);
+        }
+        inside.andNot(hits);
+        for (int id = inside.nextSetBit(0); id >= 0; id = inside.nextSetBit(id + 1)) {
+            if (!indexed.get((long) id).getSearchName().contains(term)) {
+                inside.clear(id);
+            }
+        }
+        hits.or(inside);
+        return hits;
+    }
+
+    private void put(Product product) {
+        long writeVersion = version + 1;
+        IndexedProduct entry = IndexedProduct.of(product, writeVersion);
+        IndexedProduct previous = indexed.get(entry.getId());
+        // Linked before the entry is published, readers may follow the chain without the lock
+        entry.previous = previous;
+
+        if (previous == null || previous.isDeleted()) {
+            addKeys(entry);
+            sorted.values().forEach(order -> order.add(entry));
+            size++;
+        } else {
+            moveKeys(previous, entry);
+            List<Runnable> reclaims = new ArrayList<>();
+            for (SortField field : SortField.values()) {
+                IndexedProduct holder = previous.sortedAs(field);
+                if (field.keyOrder().compare(previous, entry) == 0) {
+                    // Same key, the entry already in the index keeps standing for the product
+                    if (holder != entry) {
+                        if (entry.sortedAs == null) {
+                            entry.sortedAs = new IndexedProduct[FIELDS];
+                            Arrays.fill(entry.sortedAs, entry);
+                        }
+                        entry.sortedAs[field.ordinal()] = holder;
+                    }
+                    continue;
+                }
+                retire(holder, field, writeVersion);
+                NavigableSet<IndexedProduct> order = sorted.get(field);
+                order.add(entry);
+                reclaims.add(() -> order.remove(holder));
+            }
+            garbage.add(new Garbage(writeVersion, () -> reclaims.forEach(Runnable::run)));
+        }
+        indexed.put(entry.getId(), entry);
+        if (previous != null) {
+            garbage.add(new Garbage(writeVersion, () -> entry.previous = null));
+        }
+        version = writeVersion;
+    }
+
+    private void delete(long id) {
+        IndexedProduct current = indexed.get(id);
+        if (current == null || current.isDeleted()) {
+            return;
+        }
+        long writeVersion = version + 1;
+        IndexedProduct tombstone = current.tombstone(writeVersion);
+        tombstone.previous = current;
+
+        IndexedProduct[] holders = new IndexedProduct[FIELDS];
+        for (SortField field : SortField.values()) {
+            holders[field.ordinal()] = current.sortedAs(field);
+            retire(holders[field.ordinal()], field, writeVersion);
+        }
+        removeKeys(current);
+        indexed.put(id, tombstone);
+        size--;
+        garbage.add(new Garbage(writeVersion, () -> {
+            for (SortField field : SortField.values()) {
+                sorted.get(field).remove(holders[field.ordinal()]);
+            }
+            indexed.remove(id, tombstone);
+        }));
+        version = writeVersion;
+    }
+
+    // Drops what no open match can see anymore
+    private void reclaim() {
+        Map.Entry<Long, Integer> oldest = readers.firstEntry();
+        long oldestReader = oldest != null ? oldest.getKey() : version;
+        while (!garbage.isEmpty() && garbage.peekFirst().version() <= oldestReader) {
+            garbage.pollFirst().reclaim().run();
+        }
+    }
+
+    // Readers older than the version still see the entry in the field's index, newer ones skip it
+    private static void retire(IndexedProduct holder, SortField field, long writeVersion) {
+        long[] retiredAt = holder.retiredAt;
+        if (retiredAt == null) {
+            retiredAt = new long[FIELDS];
+            Arrays.fill(retiredAt, Long.MAX_VALUE);
+        }
+        retiredAt[field.ordinal()] = writeVersion;
+        holder.retiredAt = retiredAt;
+    }
+
+    private static IndexedProduct at(IndexedProduct newest, long readVersion) {
+        IndexedProduct entry = newest;
+        while (entry != null && entry.getVersion() > readVersion) {
+            entry = entry.previous;
+        }
+        return entry == null || entry.isDeleted() ? null : entry;
+    }
+
+    private void addKeys(IndexedProduct entry) {
+        int bit = bit(entry.getId());
+        if (entry.getCategoryId() != null) {
+            byCategory.computeIfAbsent(entry.getCategoryId(), key -> new BitSet()).set(bit);
+        }
+        (entry.isInStock() ? inStock : outOfStock).set(bit);
+        for (String gram : grams(entry.getSearchName())) {
+            byTrigram.computeIfAbsent(gram, key -> new BitSet()).set(bit);
+        }
+        for (String token : NameTokens.split(entry.getSearchName())) {
+            byToken.computeIfAbsent(token, key -> new BitSet()).set(bit);
+        }
+        names.add(entry.getName());
+    }
+
+    // Moves the bitset memberships from the previous keys to the new ones, touching only those that changed
+    private void moveKeys(IndexedProduct previous, IndexedProduct entry) {
+        int bit = bit(entry.getId());
+        if (!Objects.equals(previous.getCategoryId(), entry.getCategoryId())) {
+            if (previous.getCategoryId() != null) {
+                clearBit(byCategory, previous.getCategoryId(), bit);
+            }
+            if (entry.getCategoryId() != null) {
+                byCategory.computeIfAbsent(entry.getCategoryId(), key -> new BitSet()).set(bit);
+            }
+        }
+        if (previous.isInStock() != entry.isInStock()) {
+            (previous.isInStock() ? inStock : outOfStock).clear(bit);
+            (entry.isInStock() ? inStock : outOfStock).set(bit);
+        }
+        if (!previous.getName().equals(entry.getName())) {
+            names.remove(previous.getName());
+            names.add(entry.getName());
+        }
+        if (!previous.getSearchName().equals(entry.getSearchName())) {
+            Set<String> previousGrams = grams(previous.getSearchName());
+            Set<String> grams = grams(entry.getSearchName());
+            for (String gram : previousGrams) {
+                if (!grams.contains(gram)) {
+                    clearBit(byTrigram, gram, bit);
+                }
+            }
+            for (String gram : grams) {
+                if (!previousGrams.contains(gram)) {
+                    byTrigram.computeIfAbsent(gram, key -> new BitSet()).set(bit);
+                }
+            }
+            List<String> previousTokens = NameTokens.split(previous.getSearchName());
+            List<String> tokens = NameTokens.split(entry.getSearchName());
+            for (String token : previousTokens) {
+                if (!tokens.contains(token)) {
+                    clearBit(byToken, token, bit);
+                }
+            }
+            for (String token : tokens) {
+                if (!previousTokens.contains(token)) {
+                    byToken.computeIfAbsent(token, key -> new BitSet()).set(bit);
+                }
+            }
+        }
+    }
+
+    private void removeKeys(IndexedProduct entry) {
+        int bit = bit(entry.getId());
+        if (entry.getCategoryId() != null) {
+            clearBit(byCategory, entry.getCategoryId(), bit);
+        }
+        inStock.clear(bit);
+        outOfStock.clear(bit);
+        for (String gram : grams(entry.getSearchName())) {
+            clearBit(byTrigram, gram, bit);
+        }
+        for (String token : NameTokens.split(entry.getSearchName())) {
+            clearBit(byToken, token, bit);
+        }
+        names.remove(entry.getName());
+    }
+
+    private static <K> void clearBit(Map<K, BitSet> index, K key, int bit) {
+        BitSet members = index.get(key);
+        if (members != null) {
+            members.clear(bit);
+            if (members.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static int bit(long id) {
+        return Math.toIntExact(id);
+    }
+}
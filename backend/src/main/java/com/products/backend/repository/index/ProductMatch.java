@@ -0,0 +1,143 @@
+package com.products.backend.repository.index;
+
+import com.products.backend.model.Product;
+
+import java.util.*;
+
+/**
+ * The set of product ids matching one filter, resolved once per request at one version of the catalog.
+ * Products can be read either in id order or walked through a sorted index, and both keep returning
+ * what the catalog held at that version while writes go on. Must be closed once the request is done.
+ */
+public class ProductMatch implements AutoCloseable {
+    private final BitSet ids;
+    private final int size;
+    private final long version;
+    private final int total;
+    private final ProductIndexes indexes;
+    private boolean closed;
+
+    ProductMatch(BitSet ids, long version, int total, ProductIndexes indexes) {
+        this.ids = ids;
+        this.size = ids.cardinality();
+        this.version = version;
+        this.total = total;
+        this.indexes = indexes;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Number of products in the catalog at the match's version, matching or not
+    public int total() {
+        return total;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public boolean contains(long id) {
+        return ids.get(Math.toIntExact(id));
+    }
+
+    // The row a sorted index entry stands for as of the match's version, null when it is gone at that version
+    public IndexedProduct row(IndexedProduct entry) {
+        return indexes.rowAt(entry.getId(), version);
+    }
+
+    public Product resolve(IndexedProduct entry) {
+        IndexedProduct row = row(entry);
+        return row != null ? row.toProduct() : null;
+    }
+
+    // Matching products in id order
+    public List<Product> products() {
+        List<Product> products = new ArrayList<>(size);
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            IndexedProduct row = indexes.rowAt(id, version);
+            if (row != null) {
+                products.add(row.toProduct());
+            }
+        }
+        return products;
+    }
+
+    // Matching rows in id order, for callers that only need the keys and turn few of them into products
+    public IndexedProduct[] rows() {
+        IndexedProduct[] rows = new IndexedProduct[size];
+        int count = 0;
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            IndexedProduct row = indexes.rowAt(id, version);
+            if (row != null) {
+                rows[count++] = row;
+            }
+        }
+        return count == size ? rows : Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Walks the sorted index of the field and yields the matching products grouped by equal key,
+     * groups come in key order (reversed when descending).
+     */
+    public Iterator<List<IndexedProduct>> sortedGroups(SortField field, boolean descending) {
+        return groups(indexes.sorted(field, descending).iterator(), field);
+    }
+
+    /**
+     * Same walk, starting at the group holding the sort key of the given product. That first group
+     * still contains its predecessors, callers drop them with their full comparator.
+     */
+    public Iterator<List<IndexedProduct>> sortedGroups(SortField field, boolean descending, Product from) {
+        long edge = descending ? Long.MAX_VALUE : Long.MIN_VALUE;
+        IndexedProduct seek = IndexedProduct.of(from).seek(edge, edge);
+        return groups(indexes.sorted(field, descending).tailSet(seek, true).iterator(), field);
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            indexes.release(version);
+        }
+    }
+
+    private Iterator<List<IndexedProduct>> groups(Iterator<IndexedProduct> walk, SortField field) {
+        Comparator<IndexedProduct> keyOrder = field.keyOrder();
+
+        return new Iterator<>() {
+            private IndexedProduct pending = advance();
+
+            // Skips entries written after the match's version and those already replaced at it
+            private IndexedProduct advance() {
+                while (walk.hasNext()) {
+                    IndexedProduct entry = walk.next();
+                    if (contains(entry.getId()) && entry.visibleAt(field, version)) {
+                        return entry;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return pending != null;
+            }
+
+            @Override
+            public List<IndexedProduct> next() {
+                if (pending == null) {
+                    throw new NoSuchElementException();
+                }
+                IndexedProduct first = pending;
+                List<IndexedProduct> group = new ArrayList<>();
+                group.add(first);
+                while ((pending = advance()) != null && keyOrder.compare(first, pending) == 0) {
+                    group.add(pending);
+                }
+                return group;
+            }
+        };
+    }
+}
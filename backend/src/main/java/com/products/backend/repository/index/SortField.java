@@ -0,0 +1,38 @@
+package com.products.backend.repository.index;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+/**
+ * Sort keys supported by GET /products, each backed by its own sorted index.
+ * The key orders mirror the comparators ProductService applies to live products, names compare by their
+ * collation keys, which order like String.CASE_INSENSITIVE_ORDER.
+ */
+public enum SortField {
+    NAME((a, b) -> CollationKey.compare(a.getNameKey(), b.getNameKey())),
+    CATEGORY((a, b) -> CollationKey.compare(a.getCategoryKey(), b.getCategoryKey())),
+    PRICE(Comparator.comparingDouble(IndexedProduct::getUnitPrice)),
+    STOCK(Comparator.comparingInt(IndexedProduct::getStock)),
+    EXPIRATION_DATE(Comparator.comparing(product -> product.getExpirationDate() != null ? product.getExpirationDate() : LocalDate.MAX));
+
+    private final Comparator<IndexedProduct> keyOrder;
+
+    SortField(Comparator<IndexedProduct> keyOrder) {
+        this.keyOrder = keyOrder;
+    }
+
+    // Compares only the sort key, products sharing a key compare as equal
+    public Comparator<IndexedProduct> keyOrder() {
+        return keyOrder;
+    }
+
+    public static SortField from(String sortBy) {
+        return switch (sortBy.toLowerCase()) {
+            case "category" -> CATEGORY;
+            case "price" -> PRICE;
+            case "stock" -> STOCK;
+            case "expirationdate" -> EXPIRATION_DATE;
+            default -> NAME;
+        };
+    }
+}
@@ -0,0 +1,267 @@
+package com.products.backend.repository.journal;
+
+import com.products.backend.repository.CategoryRepository;
+import com.products.backend.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Persists both repositories in a directory of numbered files: wal-N.log write-ahead logs and snapshot-N.bin
+ * snapshots. A snapshot switches to a fresh log first and then copies the repositories, so snapshot-N plus
+ * the logs numbered N and up always rebuild the latest state, and everything older can be deleted.
+ * The copy is taken while writes go on, a row changed during it is in the snapshot and the new log both,
+ * which is harmless since records are whole rows.
+ * <p>
+ * A change is applied to the repositories only once its records are synced, and changes are applied in
+ * the order of their records in the log, so memory never holds a change the log could lose and replay
+ * ends in the same state as memory. A change whose records fail to sync is not applied at all.
+ */
+public final class FileJournal implements RepositoryJournal {
+    private static final Logger logger = LoggerFactory.getLogger(FileJournal.class);
+
+    private static final String LOG_PREFIX = "wal-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final ProductRepository products;
+    private final CategoryRepository categories;
+    // Writers hold the read side from queuing their records until the change is applied, switching logs takes the write side
+    private final ReentrantReadWriteLock switchLock = new ReentrantReadWriteLock();
+    private final WriteAheadLog log;
+    private final ScheduledExecutorService snapshotScheduler;
+    private long generation;
+    // Log order of the changes: the next one to queue its records and the next one to apply
+    private final Object queueOrder = new Object();
+    private final Object applyOrder = new Object();
+    private long queued;
+    private long applied;
+    private volatile boolean snapshotFailing;
+
+    public FileJournal(Path directory, ProductRepository products, CategoryRepository categories, long snapshotIntervalSeconds) throws IOException {
+        this.directory = directory;
+        this.products = products;
+        this.categories = categories;
+        Files.createDirectories(directory);
+
+        this.generation = replay() + 1;
+        this.log = new WriteAheadLog(file(LOG_PREFIX, generation, LOG_SUFFIX));
+        products.setJournal(this);
+        categories.setJournal(this);
+
+        if (snapshotIntervalSeconds > 0) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "product-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            snapshotScheduler = null;
+        }
+    }
+
+    @Override
+    public void writeAll(Supplier<List<byte[]>> records, Runnable apply) {
+        List<byte[]> bytes = records.get();
+        // One frame per change, the log never syncs part of one
+        byte[] record = bytes.size() == 1 ? bytes.get(0) : JournalRecords.change(bytes);
+        switchLock.readLock().lock();
+        try {
+            long turn;
+            CompletableFuture<Void> durable;
+            synchronized (queueOrder) {
+                turn = queued++;
+                durable = log.append(record);
+            }
+            RuntimeException failure = null;
+            try {
+                durable.join();
+            } catch (CompletionException e) {
+                failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+            applyInTurn(turn, failure == null ? apply : null);
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            switchLock.readLock().unlock();
+        }
+    }
+
+    // False while scheduled snapshots are failing, the logs then grow until one succeeds again
+    public boolean isSnapshotHealthy() {
+        return !snapshotFailing;
+    }
+
+    // Writes a snapshot of both repositories and deletes the files it supersedes
+    public synchronized void snapshot() throws IOException {
+        long next;
+        switchLock.writeLock().lock();
+        try {
+            next = generation + 1;
+            log.switchTo(file(LOG_PREFIX, next, LOG_SUFFIX)).join();
+            generation = next;
+        } finally {
+            switchLock.writeLock().unlock();
+        }
+
+        Iterable<byte[]> rows = () -> Stream.of(
+                Stream.of(JournalRecords.categorySequence(categories.lastId()), JournalRecords.productSequence(products.lastId())),
+                categories.findAll().stream().map(JournalRecords::putCategory),
+                products.findAll().stream().map(JournalRecords::putProduct)).flatMap(stream -> stream).iterator();
+        Path partial = file(SNAPSHOT_PREFIX, next, ".tmp");
+        WriteAheadLog.write(partial, rows);
+        Files.move(partial, file(SNAPSHOT_PREFIX, next, SNAPSHOT_SUFFIX), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (Map.Entry<Long, Path> old : files(LOG_PREFIX, LOG_SUFFIX).headMap(next).entrySet()) {
+            Files.deleteIfExists(old.getValue());
+        }
+        for (Map.Entry<Long, Path> old : files(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headMap(next).entrySet()) {
+            Files.deleteIfExists(old.getValue());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        log.close();
+    }
+
+    /**
+     * Loads the latest snapshot and the logs after it into the repositories. Records are first reduced to the
+     * last one per id, in file order, and only the surviving rows are decoded and applied, in parallel.
+     * Returns the highest generation found on disk.
+     */
+    private long replay() throws IOException {
+        NavigableMap<Long, Path> snapshots = files(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        NavigableMap<Long, Path> logs = files(LOG_PREFIX, LOG_SUFFIX);
+        long start = snapshots.isEmpty() ? 0 : snapshots.lastKey();
+
+        // A null row marks a deletion
+        Map<Long, byte[]> productRows = new HashMap<>();
+        Map<Long, byte[]> categoryRows = new HashMap<>();
+        boolean[] cleared = {false};
+        long[] lastIds = {0, 0};
+        Consumer<byte[]> reduce = record -> {
+            long id = JournalRecords.id(record);
+            byte type = JournalRecords.type(record);
+            if (type == JournalRecords.PUT_PRODUCT || type == JournalRecords.DELETE_PRODUCT || type == JournalRecords.PRODUCT_SEQUENCE) {
+                lastIds[0] = Math.max(lastIds[0], id);
+            } else if (type == JournalRecords.PUT_CATEGORY || type == JournalRecords.DELETE_CATEGORY || type == JournalRecords.CATEGORY_SEQUENCE) {
+                lastIds[1] = Math.max(lastIds[1], id);
+            }
+            switch (type) {
+                case JournalRecords.PUT_PRODUCT -> productRows.put(id, record);
+                case JournalRecords.DELETE_PRODUCT -> productRows.put(id, null);
+                case JournalRecords.CLEAR_PRODUCTS -> {
+                    productRows.clear();
+                    cleared[0] = true;
+                }
+                case JournalRecords.PUT_CATEGORY -> categoryRows.put(id, record);
+                case JournalRecords.DELETE_CATEGORY -> categoryRows.put(id, null);
+                case JournalRecords.PRODUCT_SEQUENCE, JournalRecords.CATEGORY_SEQUENCE -> { }
+                default -> throw new IllegalStateException("Unknown journal record type " + type);
+            }
+        };
+        if (!snapshots.isEmpty()) {
+            WriteAheadLog.read(snapshots.lastEntry().getValue(), reduce);
+        }
+        for (Path file : logs.tailMap(start, true).values()) {
+            WriteAheadLog.read(file, record -> JournalRecords.unwrap(record, reduce));
+        }
+
+        if (cleared[0]) {
+            products.clear();
+        }
+        products.reserveIds(lastIds[0]);
+        categories.reserveIds(lastIds[1]);
+        categoryRows.forEach((id, record) -> {
+            if (record != null) {
+                categories.restore(JournalRecords.decodeCategory(record));
+            } else {
+                categories.delete(id);
+            }
+        });
+        productRows.entrySet().parallelStream().forEach(row -> {
+            if (row.getValue() != null) {
+                products.save(JournalRecords.decodeProduct(row.getValue()));
+            } else {
+                products.delete(row.getKey());
+            }
+        });
+
+        return Math.max(start, logs.isEmpty() ? 0 : logs.lastKey());
+    }
+
+    // Waits for the changes logged before this one, a failed change only passes its turn on
+    private void applyInTurn(long turn, Runnable apply) {
+        synchronized (applyOrder) {
+            boolean interrupted = false;
+            while (applied != turn) {
+                try {
+                    applyOrder.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            try {
+                if (apply != null) {
+                    apply.run();
+                }
+            } finally {
+                applied++;
+                applyOrder.notifyAll();
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+            snapshotFailing = false;
+        } catch (IOException | RuntimeException e) {
+            // The logs still hold every change, the next run retries
+            snapshotFailing = true;
+            logger.error("Product snapshot failed, retrying at the next interval", e);
+        }
+    }
+
+    private NavigableMap<Long, Path> files(String prefix, String suffix) throws IOException {
+        NavigableMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                try {
+                    files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())), entry);
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours
+                }
+            }
+        }
+        return files;
+    }
+
+    private Path file(String prefix, long generation, String suffix) {
+        return directory.resolve(prefix + generation + suffix);
+    }
+}
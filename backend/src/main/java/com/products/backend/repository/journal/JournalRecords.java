@@ -0,0 +1,195 @@
+package com.products.backend.repository.journal;
+
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Binary encoding of repository mutations, shared by the write-ahead log and snapshots.
+ * Every record starts with its type and the id it applies to, so replay can keep only the last record
+ * per id before decoding anything. Saves carry the whole row, replaying a record twice is harmless.
+ * A change made of several records is logged as one CHANGE record wrapping them, so it is in one frame of
+ * the log and is replayed whole or not at all.
+ */
+public final class JournalRecords {
+    static final byte PUT_PRODUCT = 1;
+    static final byte DELETE_PRODUCT = 2;
+    static final byte CLEAR_PRODUCTS = 3;
+    static final byte PUT_CATEGORY = 4;
+    static final byte DELETE_CATEGORY = 5;
+    static final byte PRODUCT_SEQUENCE = 6;
+    static final byte CATEGORY_SEQUENCE = 7;
+    static final byte CHANGE = 8;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private JournalRecords() {
+    }
+
+    public static byte[] putProduct(Product product) {
+        return encode(PUT_PRODUCT, product.getId(), out -> {
+            writeString(out, product.getName());
+            Category category = product.getCategory();
+            out.writeBoolean(category != null);
+            if (category != null) {
+                out.writeLong(category.getId());
+                writeString(out, category.getName());
+            }
+            out.writeBoolean(product.getUnitPrice() != null);
+            out.writeDouble(product.getUnitPrice() != null ? product.getUnitPrice() : 0);
+            out.writeBoolean(product.getStock() != null);
+            out.writeInt(product.getStock() != null ? product.getStock() : 0);
+            writeDate(out, product.getExpirationDate());
+            writeDate(out, product.getCreatedAt());
+            writeDate(out, product.getUpdatedAt());
+        });
+    }
+
+    public static byte[] deleteProduct(long id) {
+        return encode(DELETE_PRODUCT, id, out -> { });
+    }
+
+    public static byte[] clearProducts() {
+        return encode(CLEAR_PRODUCTS, 0, out -> { });
+    }
+
+    public static byte[] putCategory(Category category) {
+        return encode(PUT_CATEGORY, category.getId(), out -> writeString(out, category.getName()));
+    }
+
+    public static byte[] deleteCategory(long id) {
+        return encode(DELETE_CATEGORY, id, out -> { });
+    }
+
+    // Last id handed out, so ids of deleted rows are not reused after a snapshot dropped their records
+    static byte[] productSequence(long lastId) {
+        return encode(PRODUCT_SEQUENCE, lastId, out -> { });
+    }
+
+    static byte[] categorySequence(long lastId) {
+        return encode(CATEGORY_SEQUENCE, lastId, out -> { });
+    }
+
+    // The id field holds the number of wrapped records
+    static byte[] change(List<byte[]> records) {
+        return encode(CHANGE, records.size(), out -> {
+            for (byte[] record : records) {
+                out.writeInt(record.length);
+                out.write(record);
+            }
+        });
+    }
+
+    // Hands the records a CHANGE wraps to the sink in order, any other record as it is
+    static void unwrap(byte[] record, Consumer<byte[]> sink) {
+        if (type(record) != CHANGE) {
+            sink.accept(record);
+            return;
+        }
+        try {
+            DataInputStream in = body(record);
+            List<byte[]> records = new ArrayList<>((int) id(record));
+            for (long i = id(record); i > 0; i--) {
+                byte[] wrapped = new byte[in.readInt()];
+                in.readFully(wrapped);
+                records.add(wrapped);
+            }
+            records.forEach(sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte type(byte[] record) {
+        return record[0];
+    }
+
+    static long id(byte[] record) {
+        return ByteBuffer.wrap(record).getLong(1);
+    }
+
+    static Product decodeProduct(byte[] record) {
+        try {
+            DataInputStream in = body(record);
+            Product product = new Product();
+            product.setId(id(record));
+            product.setName(readString(in));
+            if (in.readBoolean()) {
+                Category category = new Category();
+                category.setId(in.readLong());
+                category.setName(readString(in));
+                product.setCategory(category);
+            }
+            boolean hasPrice = in.readBoolean();
+            double unitPrice = in.readDouble();
+            product.setUnitPrice(hasPrice ? unitPrice : null);
+            boolean hasStock = in.readBoolean();
+            int stock = in.readInt();
+            product.setStock(hasStock ? stock : null);
+            product.setExpirationDate(readDate(in));
+            product.setCreatedAt(readDate(in));
+            product.setUpdatedAt(readDate(in));
+            return product;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Category decodeCategory(byte[] record) {
+        try {
+            Category category = new Category();
+            category.setId(id(record));
+            category.setName(readString(body(record)));
+            return category;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(byte type, long id, Body body) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeLong(id);
+            body.write(out);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static DataInputStream body(byte[] record) {
+        return new DataInputStream(new ByteArrayInputStream(record, 9, record.length - 9));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        out.writeUTF(value != null ? value : "");
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        boolean present = in.readBoolean();
+        String value = in.readUTF();
+        return present ? value : null;
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeLong(date != null ? date.toEpochDay() : NO_DATE);
+    }
+
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay != NO_DATE ? LocalDate.ofEpochDay(epochDay) : null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.products.backend.repository.journal;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Durability hook of the repositories. Every mutation hands the journal its records together with the code
+ * that applies it to memory, the journal runs that code once the records are durable and returns after it.
+ * If the records cannot be made durable, the change is not applied and the call throws.
+ */
+public interface RepositoryJournal extends AutoCloseable {
+    // Used when persistence is disabled and while a journal is replaying into the repositories
+    RepositoryJournal NONE = (records, apply) -> apply.run();
+
+    // Logs several records for one change as a single unit, they become durable together or not at all
+    void writeAll(Supplier<List<byte[]>> records, Runnable apply);
+
+    default void write(Supplier<byte[]> record, Runnable apply) {
+        writeAll(() -> List.of(record.get()), apply);
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
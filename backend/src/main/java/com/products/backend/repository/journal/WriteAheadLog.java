@@ -0,0 +1,253 @@
+package com.products.backend.repository.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of framed records (length, CRC32, payload) with group commit. Appends are queued and a
+ * single writer thread drains whatever has piled up, writes it in one go and syncs once for the whole batch,
+ * so concurrent writers share an fsync instead of paying one each.
+ * <p>
+ * A batch that fails to write or sync is cut off the file again, so no later frame lands behind a torn one
+ * where replay would never reach it. If the file cannot be cut back, the log rejects every append until it
+ * switches to another file.
+ */
+public class WriteAheadLog implements AutoCloseable {
+    private static final int FRAME_HEADER = 8;
+    private static final int MAX_BATCH = 4096;
+    private static final Pending STOP = new Pending(null, null, null);
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private FileChannel channel;
+    // End of the last synced batch, and the failure that left bytes after it, both owned by the writer thread
+    private long synced;
+    private IOException broken;
+    private boolean closed;
+
+    // A record to append, or a request to continue in another file once everything before it is synced
+    private record Pending(byte[] record, Path switchTo, CompletableFuture<Void> done) {
+    }
+
+    public WriteAheadLog(Path file) throws IOException {
+        this.channel = open(file);
+        this.synced = channel.size();
+        this.writer = new Thread(this::run, "product-wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Completes once the record is synced to disk
+    public CompletableFuture<Void> append(byte[] record) {
+        return enqueue(new Pending(record, null, new CompletableFuture<>()));
+    }
+
+    // Syncs everything appended so far, then appends to the given file from then on
+    public CompletableFuture<Void> switchTo(Path file) {
+        return enqueue(new Pending(null, file, new CompletableFuture<>()));
+    }
+
+    /**
+     * Reads every intact record of a log or snapshot file in order. Reading stops at the first torn or
+     * corrupt frame, which can only be the tail of a log that was being written when the process died.
+     */
+    public static void read(Path file, Consumer<byte[]> records) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+            while (true) {
+                header.clear();
+                if (!readFully(in, header)) {
+                    return;
+                }
+                int length = header.getInt(0);
+                if (length <= 0 || length > in.size() - in.position()) {
+                    return;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                if (!readFully(in, payload) || checksum(payload.array()) != header.getInt(4)) {
+                    return;
+                }
+                records.accept(payload.array());
+            }
+        }
+    }
+
+    // Writes a whole file of records and syncs it, used for snapshots
+    public static void write(Path file, Iterable<byte[]> records) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<byte[]> batch = new ArrayList<>(MAX_BATCH);
+            for (byte[] record : records) {
+                batch.add(record);
+                if (batch.size() == MAX_BATCH) {
+                    writeFully(out, frames(batch));
+                    batch.clear();
+                }
+            }
+            writeFully(out, frames(batch));
+            out.force(true);
+        }
+    }
+
+    // Flushes what is already queued, later appends fail
+    @Override
+    public void close() throws IOException {
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(STOP);
+        }
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        channel.close();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(Pending pending) {
+        synchronized (queue) {
+            if (closed) {
+                pending.done().completeExceptionally(new IllegalStateException("Write-ahead log is closed"));
+            } else {
+                queue.add(pending);
+            }
+        }
+        return pending.done();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            // STOP is always the last entry ever queued
+            stopping = batch.get(batch.size() - 1) == STOP;
+            if (stopping) {
+                batch.remove(batch.size() - 1);
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<byte[]> records = new ArrayList<>(batch.size());
+        int start = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            if (pending.switchTo() == null) {
+                records.add(pending.record());
+                continue;
+            }
+            sync(batch.subList(start, i), records);
+            records.clear();
+            start = i + 1;
+            try {
+                FileChannel next = open(pending.switchTo());
+                long end = next.size();
+                channel.close();
+                channel = next;
+                synced = end;
+                broken = null;
+                pending.done().complete(null);
+            } catch (IOException e) {
+                pending.done().completeExceptionally(new UncheckedIOException(e));
+            }
+        }
+        sync(batch.subList(start, batch.size()), records);
+    }
+
+    private void sync(List<Pending> pending, List<byte[]> records) {
+        if (broken != null) {
+            IllegalStateException failure = new IllegalStateException("Write-ahead log could not recover from a failed write", broken);
+            pending.forEach(entry -> entry.done().completeExceptionally(failure));
+            return;
+        }
+        try {
+            if (!records.isEmpty()) {
+                ByteBuffer frames = frames(records);
+                long end = synced + frames.remaining();
+                writeFully(channel, frames);
+                channel.force(false);
+                synced = end;
+            }
+            pending.forEach(entry -> entry.done().complete(null));
+        } catch (IOException e) {
+            rollBack(e);
+            UncheckedIOException failure = new UncheckedIOException(e);
+            pending.forEach(entry -> entry.done().completeExceptionally(failure));
+        }
+    }
+
+    // Drops whatever part of the failed batch reached the file
+    private void rollBack(IOException cause) {
+        try {
+            channel.truncate(synced);
+            channel.force(false);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            broken = cause;
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static ByteBuffer frames(List<byte[]> records) {
+        int size = 0;
+        for (byte[] record : records) {
+            size += FRAME_HEADER + record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] record : records) {
+            buffer.putInt(record.length).putInt(checksum(record)).put(record);
+        }
+        return buffer.flip();
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static boolean readFully(FileChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,218 @@
+package com.products.backend.repository.store;
+
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column-wise product storage: one primitive array per field, indexed by slot, in place of a bean with boxed
+ * fields and date objects per product. Names and categories are dictionary encoded, slots of deleted products
+ * go to a free list and are reused by later inserts. This is only the primary copy, the repository indexes
+ * keep a full immutable row object per product whichever store sits under them, so the store choice barely
+ * moves the per-product footprint of the whole repository.
+ * Reads hand out fresh Product copies, changes only land through put.
+ */
+public class ColumnarProductStore implements ProductStore {
+    private static final int NO_SLOT = -1;
+    private static final long FREE = -1;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ValueDictionary<String> names = new ValueDictionary<>();
+    private final ValueDictionary<CategoryKey> categories = new ValueDictionary<>();
+
+    private int[] slotById = filled(INITIAL_CAPACITY, NO_SLOT);
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] nameCodes = new int[INITIAL_CAPACITY];
+    private int[] categoryCodes = new int[INITIAL_CAPACITY];
+    private double[] unitPrices = new double[INITIAL_CAPACITY];
+    private int[] stocks = new int[INITIAL_CAPACITY];
+    private int[] expirationDays = new int[INITIAL_CAPACITY];
+    private int[] createdDays = new int[INITIAL_CAPACITY];
+    private int[] updatedDays = new int[INITIAL_CAPACITY];
+    private int rows;
+    private int size;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    @Override
+    public Product get(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(id);
+            return slot != NO_SLOT ? read(slot) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Product product) {
+        int id = Math.toIntExact(product.getId());
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(id);
+            if (slot == NO_SLOT) {
+                slot = allocate(id);
+            } else {
+                names.release(nameCodes[slot]);
+                categories.release(categoryCodes[slot]);
+            }
+            write(slot, product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(id);
+            if (slot == NO_SLOT) {
+                return;
+            }
+            names.release(nameCodes[slot]);
+            categories.release(categoryCodes[slot]);
+            ids[slot] = FREE;
+            slotById[(int) id] = NO_SLOT;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> values() {
+        lock.readLock().lock();
+        try {
+            List<Product> products = new ArrayList<>(size);
+            for (int slot = 0; slot < rows; slot++) {
+                if (ids[slot] != FREE) {
+                    products.add(read(slot));
+                }
+            }
+            return products;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(slotById, NO_SLOT);
+            rows = 0;
+            size = 0;
+            freeCount = 0;
+            names.clear();
+            categories.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int slotOf(long id) {
+        return id >= 0 && id < slotById.length ? slotById[(int) id] : NO_SLOT;
+    }
+
+    private int allocate(int id) {
+        if (id >= slotById.length) {
+            int length = slotById.length;
+            slotById = Arrays.copyOf(slotById, Math.max(id + 1, length * 2));
+            Arrays.fill(slotById, length, slotById.length, NO_SLOT);
+        }
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (rows == ids.length) {
+                grow(rows * 2);
+            }
+            slot = rows++;
+        }
+        slotById[id] = slot;
+        ids[slot] = id;
+        size++;
+        return slot;
+    }
+
+    private void write(int slot, Product product) {
+        Category category = product.getCategory();
+        nameCodes[slot] = names.encode(product.getName());
+        categoryCodes[slot] = categories.encode(category != null ? new CategoryKey(category.getId(), category.getName()) : null);
+        unitPrices[slot] = product.getUnitPrice() != null ? product.getUnitPrice() : Double.NaN;
+        stocks[slot] = product.getStock() != null ? product.getStock() : NULL_INT;
+        expirationDays[slot] = toDay(product.getExpirationDate());
+        createdDays[slot] = toDay(product.getCreatedAt());
+        updatedDays[slot] = toDay(product.getUpdatedAt());
+    }
+
+    private Product read(int slot) {
+        Product product = new Product();
+        product.setId(ids[slot]);
+        product.setName(names.decode(nameCodes[slot]));
+        CategoryKey key = categories.decode(categoryCodes[slot]);
+        if (key != null) {
+            Category category = new Category();
+            category.setId(key.id());
+            category.setName(key.name());
+            product.setCategory(category);
+        }
+        product.setUnitPrice(Double.isNaN(unitPrices[slot]) ? null : unitPrices[slot]);
+        product.setStock(stocks[slot] != NULL_INT ? stocks[slot] : null);
+        product.setExpirationDate(fromDay(expirationDays[slot]));
+        product.setCreatedAt(fromDay(createdDays[slot]));
+        product.setUpdatedAt(fromDay(updatedDays[slot]));
+        return product;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        nameCodes = Arrays.copyOf(nameCodes, capacity);
+        categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+        unitPrices = Arrays.copyOf(unitPrices, capacity);
+        stocks = Arrays.copyOf(stocks, capacity);
+        expirationDays = Arrays.copyOf(expirationDays, capacity);
+        createdDays = Arrays.copyOf(createdDays, capacity);
+        updatedDays = Arrays.copyOf(updatedDays, capacity);
+    }
+
+    private static int toDay(LocalDate date) {
+        return date != null ? Math.toIntExact(date.toEpochDay()) : NULL_INT;
+    }
+
+    private static LocalDate fromDay(int day) {
+        return day != NULL_INT ? LocalDate.ofEpochDay(day) : null;
+    }
+
+    private static int[] filled(int length, int value) {
+        int[] array = new int[length];
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    private record CategoryKey(long id, String name) {
+    }
+}
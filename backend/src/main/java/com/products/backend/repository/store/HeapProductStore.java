@@ -0,0 +1,48 @@
+package com.products.backend.repository.store;
+
+import com.products.backend.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Default store: immutable records in a concurrent map, replaced as a whole on every save
+public class HeapProductStore implements ProductStore {
+    private final Map<Long, ProductRecord> productStore = new ConcurrentHashMap<>();
+
+    @Override
+    public Product get(long id) {
+        ProductRecord record = productStore.get(id);
+        return record != null ? record.toProduct() : null;
+    }
+
+    @Override
+    public void put(Product product) {
+        productStore.put(product.getId(), ProductRecord.of(product));
+    }
+
+    @Override
+    public void remove(long id) {
+        productStore.remove(id);
+    }
+
+    @Override
+    public List<Product> values() {
+        List<Product> products = new ArrayList<>(productStore.size());
+        for (ProductRecord record : productStore.values()) {
+            products.add(record.toProduct());
+        }
+        return products;
+    }
+
+    @Override
+    public int size() {
+        return productStore.size();
+    }
+
+    @Override
+    public void clear() {
+        productStore.clear();
+    }
+}
@@ -0,0 +1,444 @@
+package com.products.backend.repository.store;
+
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent product storage: fixed-size records in a memory-mapped file, accessed through a
+ * {@link MemorySegment}. Only the store's own copy of each row is kept off the heap, the repository indexes
+ * still hold an immutable row per product, and a restart reads every record back to rebuild them. What the
+ * file saves is the reload from another source: the catalog survives a restart without a journal replay.
+ * The file doubles when it runs out of slots.
+ * <p>
+ * Records are never rewritten in place. An update goes to a fresh slot with a higher sequence number and a
+ * CRC32C over the record, and the slot it replaces is only freed after the next force, so a crash leaves
+ * either version intact. On load, slots whose checksum does not match are dropped as torn and, of two
+ * valid records with one id, the higher sequence wins.
+ */
+public class MappedProductStore implements ProductStore, AutoCloseable {
+    private static final int MAGIC = 0x50524F44;
+    private static final int VERSION = 2;
+    private static final long HEADER_SIZE = 64;
+    private static final long HEADER_MAGIC = 0;
+    private static final long HEADER_VERSION = 4;
+    private static final long HEADER_SLOT_SIZE = 8;
+    private static final long HEADER_HIGH_WATER = 12;
+
+    // Record layout, an id of 0 marks a free slot. The checksum covers every other byte of the record
+    private static final long ID = 0;
+    private static final long SEQUENCE = 8;
+    private static final long CATEGORY_ID = 16;
+    private static final long UNIT_PRICE = 24;
+    private static final long STOCK = 32;
+    private static final long EXPIRATION_DAY = 36;
+    private static final long CREATED_DAY = 40;
+    private static final long UPDATED_DAY = 44;
+    private static final long FLAGS = 48;
+    private static final long CHECKSUM = 52;
+    private static final long NAME = 56;
+    private static final int NAME_BYTES = 480;
+    private static final long CATEGORY_NAME = NAME + 2 + NAME_BYTES;
+    private static final int CATEGORY_NAME_BYTES = 112;
+    private static final long RECORD_END = CATEGORY_NAME + 2 + CATEGORY_NAME_BYTES;
+    // Slots stay 8 byte aligned so the id is written in one store
+    private static final long SLOT_SIZE = (RECORD_END + 7) & ~7L;
+
+    private static final int HAS_CATEGORY = 1;
+    private static final int HAS_STOCK = 2;
+    private static final int NULL_DAY = Integer.MIN_VALUE;
+    private static final short NULL_STRING = -1;
+    private static final int NO_SLOT = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final FileChannel channel;
+    private Arena arena;
+    private MemorySegment segment;
+    private long capacity;
+    private int highWater;
+    private int size;
+    private int[] slotById = new int[0];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    // Slots holding replaced versions, kept until a force has made their replacements durable
+    private int[] supersededSlots = new int[16];
+    private int supersededCount;
+    private final BitSet supersededIds = new BitSet();
+    private long nextSequence = 1;
+    private final byte[] record = new byte[(int) RECORD_END];
+
+    public MappedProductStore(Path file, int initialCapacity) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean existing = channel.size() >= HEADER_SIZE;
+        map(existing ? Math.max(1, (channel.size() - HEADER_SIZE) / SLOT_SIZE) : Math.max(1, initialCapacity));
+
+        if (existing) {
+            if (segment.get(ValueLayout.JAVA_INT_UNALIGNED, HEADER_MAGIC) != MAGIC) {
+                release();
+                throw new IllegalStateException(file + " is not a product store file");
+            }
+            if (segment.get(ValueLayout.JAVA_INT_UNALIGNED, HEADER_VERSION) != VERSION
+                    || segment.get(ValueLayout.JAVA_INT_UNALIGNED, HEADER_SLOT_SIZE) != SLOT_SIZE) {
+                release();
+                throw new IllegalStateException(file + " uses an unsupported product store format version");
+            }
+            highWater = segment.get(ValueLayout.JAVA_INT_UNALIGNED, HEADER_HIGH_WATER);
+            rebuildSlots();
+        } else {
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, HEADER_MAGIC, MAGIC);
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, HEADER_VERSION, VERSION);
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, HEADER_SLOT_SIZE, (int) SLOT_SIZE);
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, HEADER_HIGH_WATER, 0);
+        }
+    }
+
+    @Override
+    public Product get(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(id);
+            return slot != NO_SLOT ? read(slot) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Product product) {
+        long id = product.getId();
+        if (id <= 0) {
+            throw new IllegalArgumentException("Product ids must be positive");
+        }
+        byte[] name = encode(product.getName(), NAME_BYTES, "Product name");
+        Category category = product.getCategory();
+        byte[] categoryName = encode(category != null ? category.getName() : null, CATEGORY_NAME_BYTES, "Category name");
+
+        lock.writeLock().lock();
+        try {
+            int index = Math.toIntExact(id);
+            int previous = slotOf(id);
+            int slot = allocate();
+            long base = offset(slot);
+            int flags = (category != null ? HAS_CATEGORY : 0) | (product.getStock() != null ? HAS_STOCK : 0);
+            segment.set(ValueLayout.JAVA_LONG_UNALIGNED, base + SEQUENCE, nextSequence++);
+            segment.set(ValueLayout.JAVA_LONG_UNALIGNED, base + CATEGORY_ID, category != null ? category.getId() : 0);
+            segment.set(ValueLayout.JAVA_DOUBLE_UNALIGNED, base + UNIT_PRICE, product.getUnitPrice() != null ? product.getUnitPrice() : Double.NaN);
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, base + STOCK, product.getStock() != null ? product.getStock() : 0);
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, base + EXPIRATION_DAY, toDay(product.getExpirationDate()));
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, base + CREATED_DAY, toDay(product.getCreatedAt()));
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, base + UPDATED_DAY, toDay(product.getUpdatedAt()));
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, base + FLAGS, flags);
+            writeString(base + NAME, name);
+            writeString(base + CATEGORY_NAME, categoryName);
+            segment.set(ValueLayout.JAVA_LONG_UNALIGNED, base + ID, id);
+            segment.set(ValueLayout.JAVA_INT_UNALIGNED, base + CHECKSUM, checksum(base));
+
+            ensureIdCapacity(index);
+            slotById[index] = slot;
+            if (previous == NO_SLOT) {
+                size++;
+            } else {
+                supersede(previous, index);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void check(Product product) {
+        encode(product.getName(), NAME_BYTES, "Product name");
+        Category category = product.getCategory();
+        encode(category != null ? category.getName() : null, CATEGORY_NAME_BYTES, "Category name");
+    }
+
+    @Override
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(id);
+            if (slot == NO_SLOT) {
+                return;
+            }
+            if (supersededIds.get((int) id)) {
+                // An older version is still on file, it has to go first or a crash could bring it back
+                reclaim();
+            }
+            segment.set(ValueLayout.JAVA_LONG_UNALIGNED, offset(slot) + ID, 0L);
+            slotById[(int) id] = NO_SLOT;
+            pushFree(slot);
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> values() {
+        lock.readLock().lock();
+        try {
+            List<Product> products = new ArrayList<>(size);
+            for (int slot = 0; slot < highWater; slot++) {
+                long id = segment.get(ValueLayout.JAVA_LONG_UNALIGNED, offset(slot) + ID);
+                if (id != 0 && slotOf(id) == slot) {
+                    products.add(read(slot));
+                }
+            }
+            return products;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (int slot = 0; slot < highWater; slot++) {
+                segment.set(ValueLayout.JAVA_LONG_UNALIGNED, offset(slot) + ID, 0L);
+            }
+            setHighWater(0);
+            Arrays.fill(slotById, NO_SLOT);
+            freeCount = 0;
+            supersededCount = 0;
+            supersededIds.clear();
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Writes dirty pages of the mapping back to the file, then frees the slots of replaced versions
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            reclaim();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            release();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void release() throws IOException {
+        if (arena != null) {
+            segment.force();
+            arena.close();
+            arena = null;
+        }
+        channel.close();
+    }
+
+    private void map(long slots) throws IOException {
+        Arena next = Arena.ofShared();
+        MemorySegment mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + slots * SLOT_SIZE, next);
+        if (arena != null) {
+            segment.force();
+            arena.close();
+        }
+        arena = next;
+        segment = mapped;
+        capacity = slots;
+    }
+
+    // Drops torn records and, where a crash left two versions of a product, the older one
+    private void rebuildSlots() {
+        for (int slot = 0; slot < highWater; slot++) {
+            long base = offset(slot);
+            long id = segment.get(ValueLayout.JAVA_LONG_UNALIGNED, base + ID);
+            if (id == 0) {
+                pushFree(slot);
+                continue;
+            }
+            if (id < 0 || id > Integer.MAX_VALUE || segment.get(ValueLayout.JAVA_INT_UNALIGNED, base + CHECKSUM) != checksum(base)) {
+                discard(slot);
+                continue;
+            }
+            long sequence = segment.get(ValueLayout.JAVA_LONG_UNALIGNED, base + SEQUENCE);
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            int other = slotOf(id);
+            if (other == NO_SLOT) {
+                ensureIdCapacity((int) id);
+                slotById[(int) id] = slot;
+                size++;
+            } else if (segment.get(ValueLayout.JAVA_LONG_UNALIGNED, offset(other) + SEQUENCE) < sequence) {
+                slotById[(int) id] = slot;
+                discard(other);
+            } else {
+                discard(slot);
+            }
+        }
+    }
+
+    private void discard(int slot) {
+        segment.set(ValueLayout.JAVA_LONG_UNALIGNED, offset(slot) + ID, 0L);
+        pushFree(slot);
+    }
+
+    private int allocate() {
+        if (freeCount == 0 && supersededCount > 0) {
+            reclaim();
+        }
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (highWater == capacity) {
+            try {
+                map(capacity * 2);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        int slot = highWater;
+        setHighWater(highWater + 1);
+        return slot;
+    }
+
+    private void supersede(int slot, int id) {
+        if (supersededCount == supersededSlots.length) {
+            supersededSlots = Arrays.copyOf(supersededSlots, supersededCount * 2);
+        }
+        supersededSlots[supersededCount++] = slot;
+        supersededIds.set(id);
+    }
+
+    // Once the newer versions are forced to the file, the slots they replaced can be cleared and reused
+    private void reclaim() {
+        segment.force();
+        for (int i = 0; i < supersededCount; i++) {
+            discard(supersededSlots[i]);
+        }
+        supersededCount = 0;
+        supersededIds.clear();
+    }
+
+    // Only called under the write lock, the record is copied out since CRC32C cannot read shared segments
+    private int checksum(long base) {
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, base, record, 0, record.length);
+        CRC32C crc = new CRC32C();
+        crc.update(record, 0, (int) CHECKSUM);
+        crc.update(record, (int) CHECKSUM + 4, record.length - (int) CHECKSUM - 4);
+        return (int) crc.getValue();
+    }
+
+    private Product read(int slot) {
+        long base = offset(slot);
+        int flags = segment.get(ValueLayout.JAVA_INT_UNALIGNED, base + FLAGS);
+        Product product = new Product();
+        product.setId(segment.get(ValueLayout.JAVA_LONG_UNALIGNED, base + ID));
+        product.setName(readString(base + NAME));
+        if ((flags & HAS_CATEGORY) != 0) {
+            Category category = new Category();
+            category.setId(segment.get(ValueLayout.JAVA_LONG_UNALIGNED, base + CATEGORY_ID));
+            category.setName(readString(base + CATEGORY_NAME));
+            product.setCategory(category);
+        }
+        double unitPrice = segment.get(ValueLayout.JAVA_DOUBLE_UNALIGNED, base + UNIT_PRICE);
+        product.setUnitPrice(Double.isNaN(unitPrice) ? null : unitPrice);
+        product.setStock((flags & HAS_STOCK) != 0 ? segment.get(ValueLayout.JAVA_INT_UNALIGNED, base + STOCK) : null);
+        product.setExpirationDate(fromDay(segment.get(ValueLayout.JAVA_INT_UNALIGNED, base + EXPIRATION_DAY)));
+        product.setCreatedAt(fromDay(segment.get(ValueLayout.JAVA_INT_UNALIGNED, base + CREATED_DAY)));
+        product.setUpdatedAt(fromDay(segment.get(ValueLayout.JAVA_INT_UNALIGNED, base + UPDATED_DAY)));
+        return product;
+    }
+
+    private void writeString(long offset, byte[] bytes) {
+        if (bytes == null) {
+            segment.set(ValueLayout.JAVA_SHORT_UNALIGNED, offset, NULL_STRING);
+            return;
+        }
+        segment.set(ValueLayout.JAVA_SHORT_UNALIGNED, offset, (short) bytes.length);
+        MemorySegment.copy(bytes, 0, segment, ValueLayout.JAVA_BYTE, offset + 2, bytes.length);
+    }
+
+    private String readString(long offset) {
+        short length = segment.get(ValueLayout.JAVA_SHORT_UNALIGNED, offset);
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, offset + 2, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String value, int maxBytes, String label) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxBytes) {
+            throw new IllegalArgumentException(label + " is longer than " + maxBytes + " bytes");
+        }
+        return bytes;
+    }
+
+    private void setHighWater(int value) {
+        highWater = value;
+        segment.set(ValueLayout.JAVA_INT_UNALIGNED, HEADER_HIGH_WATER, value);
+    }
+
+    private void pushFree(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void ensureIdCapacity(int id) {
+        if (id >= slotById.length) {
+            int length = slotById.length;
+            slotById = Arrays.copyOf(slotById, Math.max(id + 1, Math.max(1024, length * 2)));
+            Arrays.fill(slotById, length, slotById.length, NO_SLOT);
+        }
+    }
+
+    private int slotOf(long id) {
+        return id > 0 && id < slotById.length ? slotById[(int) id] : NO_SLOT;
+    }
+
+    private static long offset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static int toDay(LocalDate date) {
+        return date != null ? Math.toIntExact(date.toEpochDay()) : NULL_DAY;
+    }
+
+    private static LocalDate fromDay(int day) {
+        return day != NULL_DAY ? LocalDate.ofEpochDay(day) : null;
+    }
+}
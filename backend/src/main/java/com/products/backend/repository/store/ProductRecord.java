@@ -0,0 +1,41 @@
+package com.products.backend.repository.store;
+
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable row of the heap store. A save builds a new record and swaps it in, readers get Product beans
+ * built from a record, so nothing a caller mutates is ever visible to another reader before it is saved.
+ */
+public record ProductRecord(long id, String name, Long categoryId, String categoryName, Double unitPrice,
+                            Integer stock, LocalDate expirationDate, LocalDate createdAt, LocalDate updatedAt) {
+
+    public static ProductRecord of(Product product) {
+        Category category = product.getCategory();
+        return new ProductRecord(product.getId(), product.getName(),
+                category != null ? category.getId() : null, category != null ? category.getName() : null,
+                product.getUnitPrice(), product.getStock(), product.getExpirationDate(),
+                product.getCreatedAt(), product.getUpdatedAt());
+    }
+
+    // A fresh mutable copy, changes only reach the store when it is saved
+    public Product toProduct() {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        if (categoryId != null) {
+            Category category = new Category();
+            category.setId(categoryId);
+            category.setName(categoryName);
+            product.setCategory(category);
+        }
+        product.setUnitPrice(unitPrice);
+        product.setStock(stock);
+        product.setExpirationDate(expirationDate);
+        product.setCreatedAt(createdAt);
+        product.setUpdatedAt(updatedAt);
+        return product;
+    }
+}
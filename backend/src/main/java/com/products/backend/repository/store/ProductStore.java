@@ -0,0 +1,27 @@
+package com.products.backend.repository.store;
+
+import com.products.backend.model.Product;
+
+import java.util.List;
+
+/**
+ * Primary storage behind ProductRepository, selected with the products.store property.
+ * Indexes live in the repository, a store only keeps rows by id.
+ */
+public interface ProductStore {
+    Product get(long id);
+
+    void put(Product product);
+
+    // Throws if put would reject the product, checked before a change is logged
+    default void check(Product product) {
+    }
+
+    void remove(long id);
+
+    List<Product> values();
+
+    int size();
+
+    void clear();
+}
@@ -0,0 +1,69 @@
+package com.products.backend.repository.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reference-counted dictionary encoding for repeated column values. Codes of values
+ * no longer referenced by any row are recycled. Not thread safe, the owning store locks around it.
+ */
+class ValueDictionary<T> {
+    static final int NULL_CODE = -1;
+
+    private final Map<T, Integer> codes = new HashMap<>();
+    private final List<T> values = new ArrayList<>();
+    private int[] references = new int[16];
+    private int[] freeCodes = new int[16];
+    private int freeCount;
+
+    int encode(T value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = freeCount > 0 ? freeCodes[--freeCount] : values.size();
+            if (code == values.size()) {
+                values.add(value);
+                if (code == references.length) {
+                    references = Arrays.copyOf(references, code * 2);
+                }
+            } else {
+                values.set(code, value);
+            }
+            codes.put(value, code);
+        }
+        references[code]++;
+        return code;
+    }
+
+    T decode(int code) {
+        return code == NULL_CODE ? null : values.get(code);
+    }
+
+    void release(int code) {
+        if (code == NULL_CODE || --references[code] > 0) {
+            return;
+        }
+        codes.remove(values.get(code));
+        values.set(code, null);
+        if (freeCount == freeCodes.length) {
+            freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+        }
+        freeCodes[freeCount++] = code;
+    }
+
+    int size() {
+        return codes.size();
+    }
+
+    void clear() {
+        codes.clear();
+        values.clear();
+        Arrays.fill(references, 0);
+        freeCount = 0;
+    }
+}
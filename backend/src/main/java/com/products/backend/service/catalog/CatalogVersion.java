@@ -0,0 +1,29 @@
+package com.products.backend.service.catalog;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts completed writes to products and categories. Services bump it as the last step of every write,
+ * so whatever is read after seeing a version includes at least the writes up to it. The startup time is
+ * part of the ETag so tags from before a restart never match.
+ */
+@Component
+public class CatalogVersion {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+    // Strong ETag of the current version
+    public String etag() {
+        return "\"" + epoch + "-" + version.get() + "\"";
+    }
+}
@@ -3,28 +3,38 @@ package com.products.backend.service.category;
 
 import com.products.backend.model.Category;
 import com.products.backend.repository.CategoryRepository;
+import com.products.backend.service.catalog.CatalogVersion;
 import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
 @Service
+@DependsOn("repositoryJournal")
 public class CategoryService implements ICategoryService {
     private final CategoryRepository categories;
+    private final CatalogVersion catalogVersion;
 
-    public CategoryService(CategoryRepository categories) {
+    public CategoryService(CategoryRepository categories, CatalogVersion catalogVersion) {
         this.categories = categories;
+        this.catalogVersion = catalogVersion;
     }
 
 
     @PostConstruct
     public void initPlaceholders() {
-        categories.setPlaceHolders();
+        // Categories replayed from the journal already include the placeholders
+        if (categories.findAll().isEmpty()) {
+            categories.setPlaceHolders();
+        }
     }
 
     @Override
     public Category createCategory(String name){
-        return this.categories.save(name);
+        Category created = this.categories.save(name);
+        catalogVersion.bump();
+        return created;
     }
 
     @Override
@@ -35,6 +45,7 @@ public class CategoryService implements ICategoryService {
     @Override
     public void deleteCategory(Long id){
         this.categories.delete(id);
+        catalogVersion.bump();
     }
     @Override
     public List<Category> getAllCategories(){
@@ -5,9 +5,10 @@ import com.products.backend.dto.product.*;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface IProductService {
- PaginatedProducts getAllProducts(
+ default PaginatedProducts getAllProducts(
             String name,
             String category,
             Boolean available,
@@ -15,17 +16,62 @@ public interface IProductService {
             String direction,
             int page,
             int size
+    ) {
+        return getAllProducts(name, category, available, sortBy, direction, page, size, null);
+    }
+
+    // When a cursor is given the page starts right after it and the page number is ignored. Offset pages cost a walk
+    // past the rows before them, deep pagination should pass the previous page's nextCursor
+    PaginatedProducts getAllProducts(
+            String name,
+            String category,
+            Boolean available,
+            String sortBy,
+            String direction,
+            int page,
+            int size,
+            String cursor
     );
 
+    /**
+     * Every product matching the filters, in the requested order, handed to the sink one at a time.
+     * Long exports are read in chunks, each at the version current when it is read, and no match is held open
+     * while the sink runs. Relevance exports are ranked in memory and rejected past a fixed number of matches.
+     */
+    void exportProducts(String name, String category, Boolean available, String sortBy, String direction,
+                        Consumer<ProductResponse> sink);
+
+    // Throws IllegalArgumentException for an export exportProducts would refuse, checked before a response is started
+    void checkExportable(String name, String category, Boolean available, String sortBy, String direction);
+
+    // Distinct product names for type-ahead, matched at the start of the name or of one of its words
+    List<String> suggestNames(String prefix, int limit);
+
     ProductResponse createProduct(ProductRequest request);
 
+    // Creates a batch of already validated products in one repository write
+    List<ProductResponse> createProducts(List<ProductRequest> requests);
+
     ProductResponse updateProduct(Long id, ProductRequest request);
 
     ProductResponse markOutOfStock(Long id);
 
     ProductResponse markInStock(Long id, Integer quantity);
+
+    // Adds delta (negative to take stock out) to the current stock, without floorAtZero a result below zero is rejected,
+    // a result past Integer.MAX_VALUE always is
+    ProductResponse adjustStock(Long id, int delta, boolean floorAtZero);
+
+    /**
+     * Sets the stock of many products in one pass. Items are grouped by the write lock of their product and each
+     * group is saved and made visible on its own, so the batch is not atomic and readers can see part of it.
+     * Order only holds per product: items for the same product are applied in request order, the last one wins.
+     */
+    StockUpdateResult updateStock(List<StockUpdate> updates);
       ProductResponse deleteProductById(Long id);
     Optional<ProductResponse> getProductById(Long id);
 
    List<Metric> getGeneralMetrics();
+
+    CacheStats getCacheStats();
 }
@@ -2,27 +2,98 @@ package com.products.backend.service.product;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import com.products.backend.classes.metrics.Metric;
+import com.products.backend.dto.product.CacheStats;
 import com.products.backend.dto.product.MetricsResponse;
 import com.products.backend.dto.product.PaginatedProducts;
 import com.products.backend.dto.product.ProductRequest;
 import com.products.backend.dto.product.ProductResponse;
+import com.products.backend.dto.product.StockUpdate;
+import com.products.backend.dto.product.StockUpdateResult;
 import com.products.backend.model.Category;
 import com.products.backend.model.Product;
 import com.products.backend.repository.CategoryRepository;
 import com.products.backend.repository.ProductRepository;
+import com.products.backend.repository.index.IndexedProduct;
+import com.products.backend.repository.index.ProductMatch;
+import com.products.backend.repository.index.SortField;
+import com.products.backend.service.catalog.CatalogVersion;
+import com.products.backend.service.product.caching.QueryKey;
+import com.products.backend.service.product.caching.TinyLfuCache;
+import com.products.backend.service.product.caching.VersionedResult;
+import com.products.backend.service.product.metrics.InventoryMetrics;
+import com.products.backend.service.product.metrics.SnapshotMetrics;
+import com.products.backend.service.product.paging.ProductCursor;
+import com.products.backend.service.product.paging.SortedIndexPager;
+import com.products.backend.service.product.paging.TopKSelector;
+import com.products.backend.service.product.query.ProductOrder;
+import com.products.backend.service.product.query.ProductQuery;
+import com.products.backend.service.product.query.SortKeys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 
 @Service
+@DependsOn("repositoryJournal")
 public class ProductService implements IProductService{
+    // Sorted index walks pay off once at least one product in this many matches the filter
+    private static final int WALK_SELECTIVITY = 8;
+    private static final int LOCK_STRIPES = 64;
+    private static final int PLAN_CACHE_SIZE = 256;
+    private static final int MAX_SUGGESTIONS = 50;
+    // A query's whole result is cached once it was asked for this many times recently
+    private static final int CACHE_AFTER_REQUESTS = 2;
+    // Rows per keyset chunk of an index walk export, and the most matches a relevance export ranks in memory
+    private static final int EXPORT_CHUNK = 1000;
+    private static final int MAX_RANKED_EXPORT = 100_000;
+
     // Getting the Repository to store the temporary data
     private final ProductRepository repository;
     private  final CategoryRepository categories;
+    private final InventoryMetrics metrics;
+    private final Object[] writeLocks = new Object[LOCK_STRIPES];
+    // Recomputes metrics from a repository snapshot, on every request in snapshot mode
+    // and otherwise whenever writes keep interleaving with a read of the running totals
+    private final SnapshotMetrics snapshotMetrics;
+    private final boolean snapshotMode;
+    // Bumped after every write, metrics are cached per version
+    private final CatalogVersion catalogVersion;
+    private final VersionedResult<List<Metric>> metricsCache;
+    // Ordered rows of the whole result of popular queries, all read at one version, dropped by the writes that could change them
+    private final TinyLfuCache<QueryKey, IndexedProduct[]> queryCache;
+    private final int maxCachedResult;
+    // Matches at least this large have their sort keys sorted in parallel
+    private final int sortParallelThreshold;
+    private final TinyLfuCache<ProductQuery.Parameters, ProductQuery> plans = new TinyLfuCache<>(PLAN_CACHE_SIZE);
+
+    // For tests and tools that write straight to the repository: result caching is off, cached results would miss those writes
     public ProductService(ProductRepository repository, CategoryRepository categories) {
+        this(repository, categories, new CatalogVersion(), "incremental", 100_000, 0, 0, 0, 100_000);
+    }
+
+    @Autowired
+    public ProductService(ProductRepository repository, CategoryRepository categories, CatalogVersion catalogVersion,
+                          @Value("${products.metrics.mode:incremental}") String metricsMode,
+                          @Value("${products.metrics.parallel-threshold:100000}") int parallelThreshold,
+                          @Value("${products.cache.max-entries:1000}") int cacheEntries,
+                          @Value("${products.cache.max-result-size:100000}") int maxCachedResult,
+                          @Value("${products.cache.max-rows:1000000}") long maxCachedRows,
+                          @Value("${products.sort.parallel-threshold:100000}") int sortParallelThreshold) {
         this.repository = repository;
         this.categories = categories;
+        this.metrics = new InventoryMetrics(repository.findAll());
+        this.snapshotMetrics = new SnapshotMetrics(parallelThreshold);
+        this.snapshotMode = "snapshot".equalsIgnoreCase(metricsMode);
+        this.catalogVersion = catalogVersion;
+        this.metricsCache = new VersionedResult<>(cacheEntries > 0);
+        // Entries are weighed by their rows, a few large results cannot hold more than maxCachedRows between them
+        this.queryCache = new TinyLfuCache<>(cacheEntries, maxCachedRows, rows -> rows.length);
+        this.maxCachedResult = maxCachedResult;
+        this.sortParallelThreshold = sortParallelThreshold;
+        Arrays.setAll(writeLocks, i -> new Object());
     }
     
     
@@ -48,78 +119,357 @@ public class ProductService implements IProductService{
             String sortBy,
             String direction,
             int page,
-            int size
+            int size,
+            String cursor
     ) {
-        sortBy = sortBy != null && !sortBy.isEmpty() ? sortBy : "name";
-        direction = direction != null && !direction.isEmpty() ? direction : "asc";
-        Comparator<Product> comparator = getMultiComparator(sortBy, direction);
-
-        Set<Long> selectedCategories;
-        if(category != null && !category.isBlank()){
-            String [] categories = category.split("-");
-            selectedCategories = Arrays.stream(categories).map(Long::parseLong).collect(Collectors.toSet());
+        ProductQuery plan = plan(name, category, available, sortBy, direction);
+        QueryKey key = plan.key();
+        Comparator<Product> comparator = plan.order();
+        String after = cursor != null && !cursor.isBlank() ? cursor : null;
+
+        IndexedProduct[] cached = queryCache.get(key);
+        if (cached != null) {
+            return slice(cached, comparator, page, size, after);
+        }
+
+        long stamp = queryCache.stamp();
+        // The page and the totals are all read at the version the match was taken at
+        try (ProductMatch match = repository.match(plan.filter())) {
+            // The whole ordered result is only built for queries asked for again, one-off queries just select their page
+            if (match.size() <= maxCachedResult && queryCache.frequency(key) >= CACHE_AFTER_REQUESTS) {
+                IndexedProduct[] ordered = ordered(match, plan, comparator);
+                queryCache.put(key, ordered, stamp);
+                return slice(ordered, comparator, page, size, after);
+            }
+            return page(match, plan, comparator, page, size, after);
+        }
+    }
+
+    private PaginatedProducts page(ProductMatch match, ProductQuery plan, Comparator<Product> comparator,
+                                   int page, int size, String cursor) {
+        // Both counts were taken with the match, the filtered one is the cardinality of its id set
+        int all = match.total();
+        int matched = match.size();
+        long offset = (long) page * size;
+
+        // Walk the sorted index unless the filter is selective enough that selecting from its matches is cheaper,
+        // relevance has no index and is always selected from the matches
+        SortField primary = plan.sortOrder().primary();
+        boolean descending = plan.sortOrder().isPrimaryDescending();
+        boolean walkIndex = !plan.isRelevance() && walksIndex(match);
+        List<Product> pageProducts;
+        if (cursor != null) {
+            Product after = ProductCursor.decode(cursor);
+            pageProducts = walkIndex
+                    ? SortedIndexPager.pageAfter(match, primary, descending, comparator, after, size)
+                    : TopKSelector.page(match.products().stream().filter(product -> comparator.compare(product, after) > 0).toList(), comparator, 0, size);
         } else {
-            selectedCategories = Set.of();
+            pageProducts = walkIndex
+                    ? SortedIndexPager.page(match, primary, descending, comparator, offset, size)
+                    : TopKSelector.page(match.products(), comparator, offset, size);
         }
-        Long all = repository.findAll().stream().count();
+        return paginated(pageProducts, page, size, matched);
+    }
 
-        List<ProductResponse> filteredProducts =  repository.findAll().stream()
-                .filter(product -> {
-                        return name == null || name.isBlank()|| product.getName().toLowerCase().contains(name.toLowerCase());
-                })
-                .filter(
-                        product -> {
-                            return category == null || category.isBlank() || selectedCategories.contains(product.getCategory().getId());
-                        }
-                )
-                .filter(product -> {
-                    if(available == null) return  true; // if not available filter, we return anything.
-                    return available ? product.getStock() > 0 : product.getStock() == 0;
-                })
-                .sorted(comparator)
-                .skip((long) page * size)
-                .limit(size)
+    /**
+     * One page out of a fully ordered result, by offset or by binary search for the cursor. The rows were all
+     * read at one version, so the order, the page and the total agree however the catalog changed since.
+     */
+    private PaginatedProducts slice(IndexedProduct[] rows, Comparator<Product> comparator,
+                                    int page, int size, String cursor) {
+        int total = rows.length;
+        int from;
+        if (cursor != null) {
+            Product after = ProductCursor.decode(cursor);
+            int low = 0;
+            int high = total;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(rows[mid].toProduct(), after) > 0) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            from = low;
+        } else {
+            from = (int) Math.min(total, (long) page * size);
+        }
+        int to = (int) Math.min(total, from + (long) Math.max(size, 0));
+        List<Product> pageProducts = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            pageProducts.add(rows[i].toProduct());
+        }
+        return paginated(pageProducts, page, size, total);
+    }
+
+    private PaginatedProducts paginated(List<Product> pageProducts, int page, int size, int total) {
+        List<ProductResponse> filteredProducts = pageProducts.stream()
                 .map(this::setResponseProduct)
                 .toList();
-        PaginatedProducts paginated = new PaginatedProducts(filteredProducts, page, size, all.intValue());
+        PaginatedProducts paginated = new PaginatedProducts(filteredProducts, page, size, total);
+        if (size > 0 && pageProducts.size() == size) {
+            paginated.setNextCursor(ProductCursor.encode(pageProducts.get(pageProducts.size() - 1)));
+        }
         return  paginated;
     }
 
+    // Every matching row in the query's order, as of the match's version
+    private IndexedProduct[] ordered(ProductMatch match, ProductQuery plan, Comparator<Product> comparator) {
+        if (plan.isRelevance()) {
+            // Relevance scores products, each row is turned into one once and sorted along with it
+            IndexedProduct[] rows = match.rows();
+            List<Map.Entry<Product, IndexedProduct>> ranked = new ArrayList<>(rows.length);
+            for (IndexedProduct row : rows) {
+                ranked.add(Map.entry(row.toProduct(), row));
+            }
+            ranked.sort(Map.Entry.comparingByKey(comparator));
+            Arrays.setAll(rows, i -> ranked.get(i).getValue());
+            return rows;
+        }
+        if (walksIndex(match)) {
+            List<IndexedProduct> rows = new ArrayList<>(match.size());
+            walk(match, plan.sortOrder(), rows::add);
+            return rows.toArray(new IndexedProduct[0]);
+        }
+        // Selective matches are sorted on their extracted keys, a walk of the whole sorted index would mostly skip rows
+        IndexedProduct[] rows = match.rows();
+        int[] positions = SortKeys.sort(rows, plan.sortOrder(), sortParallelThreshold);
+        IndexedProduct[] sorted = new IndexedProduct[rows.length];
+        Arrays.setAll(sorted, i -> rows[positions[i]]);
+        return sorted;
+    }
+
+    private static boolean walksIndex(ProductMatch match) {
+        return (long) match.size() * WALK_SELECTIVITY >= match.total();
+    }
+
+    /**
+     * Nothing is handed to the sink while a match is open, so a slow download never holds on to old row versions.
+     * Index walks go out in keyset chunks, each read through its own match, and only one chunk is held at a time.
+     * Selective matches are key sorted under one match and written from the sorted rows once it is closed, which
+     * holds a row reference and its keys per match, for fewer than an eighth of the catalog. Relevance has no
+     * index and is ranked as a whole, so relevance exports are capped at MAX_RANKED_EXPORT matches.
+     */
+    @Override
+    public void exportProducts(String name, String category, Boolean available, String sortBy, String direction,
+                               Consumer<ProductResponse> sink) {
+        ProductQuery plan = plan(name, category, available, sortBy, direction);
+        ProductOrder order = plan.sortOrder();
+        Consumer<Product> export = product -> sink.accept(setResponseProduct(product));
+        List<Product> chunk = List.of();
+        IndexedProduct[] rows = null;
+        try (ProductMatch match = repository.match(plan.filter())) {
+            if (plan.isRelevance()) {
+                checkRankable(match);
+            }
+            if (!plan.isRelevance() && walksIndex(match)) {
+                chunk = SortedIndexPager.page(match, order.primary(), order.isPrimaryDescending(), order, 0, EXPORT_CHUNK);
+            } else {
+                rows = ordered(match, plan, plan.order());
+            }
+        }
+        if (rows != null) {
+            for (IndexedProduct row : rows) {
+                export.accept(row.toProduct());
+            }
+            return;
+        }
+        chunk.forEach(export);
+        // Index walks resume after the last product written, at whatever version the next match is taken
+        while (chunk.size() == EXPORT_CHUNK) {
+            Product after = chunk.get(chunk.size() - 1);
+            try (ProductMatch match = repository.match(plan.filter())) {
+                chunk = SortedIndexPager.pageAfter(match, order.primary(), order.isPrimaryDescending(), order, after, EXPORT_CHUNK);
+            }
+            chunk.forEach(export);
+        }
+    }
+
+    @Override
+    public void checkExportable(String name, String category, Boolean available, String sortBy, String direction) {
+        ProductQuery plan = plan(name, category, available, sortBy, direction);
+        if (plan.isRelevance()) {
+            try (ProductMatch match = repository.match(plan.filter())) {
+                checkRankable(match);
+            }
+        }
+    }
+
+    private static void checkRankable(ProductMatch match) {
+        if (match.size() > MAX_RANKED_EXPORT) {
+            throw new IllegalArgumentException("Relevance exports are limited to " + MAX_RANKED_EXPORT
+                    + " matches, sort by a field to export more");
+        }
+    }
+
+    // Matching rows in the order's sequence, by a walk of the primary field's sorted index
+    private void walk(ProductMatch match, ProductOrder order, Consumer<IndexedProduct> sink) {
+        Iterator<List<IndexedProduct>> groups = match.sortedGroups(order.primary(), order.isPrimaryDescending());
+        while (groups.hasNext()) {
+            List<IndexedProduct> group = groups.next();
+            // Ties on a single sort field are ordered by id, the index already holds them that way
+            if (order.isSingleField() && order.isPrimaryDescending()) {
+                Collections.reverse(group);
+            }
+            List<IndexedProduct> members = new ArrayList<>(group.size());
+            for (IndexedProduct entry : group) {
+                IndexedProduct row = match.row(entry);
+                if (row != null) {
+                    members.add(row);
+                }
+            }
+            if (order.isSingleField()) {
+                members.forEach(sink);
+                continue;
+            }
+            IndexedProduct[] rows = members.toArray(new IndexedProduct[0]);
+            for (int position : SortKeys.sort(rows, order, sortParallelThreshold)) {
+                sink.accept(rows[position]);
+            }
+        }
+    }
+
+    @Override
+    public List<String> suggestNames(String prefix, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        return repository.suggestNames(prefix.strip(), limit);
+    }
+
     @Override
     public ProductResponse createProduct(ProductRequest request) {
         Product product = new Product();
         mapRequestToProduct(request, product);
         product.setCreatedAt(LocalDate.now());
         product.setUpdatedAt(LocalDate.now());
-        return setResponseProduct(repository.save(product));
+        List<QueryKey.Row> rows = List.of(QueryKey.Row.of(product));
+        invalidate(rows);
+        Product saved = repository.save(product);
+        metrics.add(saved);
+        invalidate(rows);
+        catalogVersion.bump();
+        return setResponseProduct(saved);
     }
 
     @Override
-    public ProductResponse updateProduct(Long id, ProductRequest request) {
-        Product product = repository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Product not found"));
+    public List<ProductResponse> createProducts(List<ProductRequest> requests) {
+        LocalDate today = LocalDate.now();
+        List<Product> products = new ArrayList<>(requests.size());
+        for (ProductRequest request : requests) {
+            Product product = new Product();
+            mapRequestToProduct(request, product);
+            product.setCreatedAt(today);
+            product.setUpdatedAt(today);
+            products.add(product);
+        }
+        List<QueryKey.Row> rows = products.stream().map(QueryKey.Row::of).toList();
+        invalidate(rows);
+        repository.saveAll(products);
+        metrics.addAll(products);
+        invalidate(rows);
+        catalogVersion.bump();
+        return products.stream().map(this::setResponseProduct).toList();
+    }
 
-        mapRequestToProduct(request, product);
-        product.setUpdatedAt(LocalDate.now());
-        return setResponseProduct(repository.save(product));
+    @Override
+    public ProductResponse updateProduct(Long id, ProductRequest request) {
+        return setResponseProduct(applyChange(id, current -> mapRequestToProduct(request, current)));
     }
 
     @Override
     public ProductResponse markOutOfStock(Long id) {
-        Product product = repository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Product not found"));
-        product.setStock(0);
-        product.setUpdatedAt(LocalDate.now());
-        return setResponseProduct(repository.save(product));
+        return setResponseProduct(applyChange(id, current -> current.setStock(0)));
     }
 
     @Override
     public ProductResponse markInStock(Long id, Integer quantity) {
-        Product product = repository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Product not found"));
-        product.setStock(quantity);
-        product.setUpdatedAt(LocalDate.now());
-        return setResponseProduct(repository.save(product));
+        return setResponseProduct(applyChange(id, current -> current.setStock(quantity)));
+    }
+
+    /**
+     * Read-modify-write under the product's lock stripe, so concurrent deltas on the same product all count
+     * while different products proceed in parallel on other stripes.
+     */
+    @Override
+    public ProductResponse adjustStock(Long id, int delta, boolean floorAtZero) {
+        return setResponseProduct(applyChange(id, current -> {
+            long stock = (long) (current.getStock() != null ? current.getStock() : 0) + delta;
+            if (stock < 0 && !floorAtZero) {
+                throw new IllegalArgumentException("Insufficient stock for product " + id);
+            }
+            if (stock > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Stock of product " + id + " would exceed " + Integer.MAX_VALUE);
+            }
+            current.setStock((int) Math.max(0, stock));
+        }));
+    }
+
+    /**
+     * Items are bucketed by lock stripe and each bucket is applied under its stripe with a single saveAll,
+     * so a batch costs at most one repository write per stripe and shares one timestamp.
+     * A product listed more than once is loaded once and ends with the last quantity.
+     */
+    @Override
+    public StockUpdateResult updateStock(List<StockUpdate> updates) {
+        LocalDate today = LocalDate.now();
+        List<Long> notFound = new ArrayList<>();
+        List<Integer> invalid = new ArrayList<>();
+        List<List<StockUpdate>> stripes = new ArrayList<>(Collections.nCopies(writeLocks.length, null));
+        for (int i = 0; i < updates.size(); i++) {
+            StockUpdate update = updates.get(i);
+            if (update == null || update.getId() == null || update.getQuantity() == null || update.getQuantity() < 0) {
+                invalid.add(i);
+                continue;
+            }
+            int stripe = stripeOf(update.getId());
+            if (stripes.get(stripe) == null) {
+                stripes.set(stripe, new ArrayList<>());
+            }
+            stripes.get(stripe).add(update);
+        }
+
+        int updated = 0;
+        for (int stripe = 0; stripe < stripes.size(); stripe++) {
+            List<StockUpdate> bucket = stripes.get(stripe);
+            if (bucket == null) {
+                continue;
+            }
+            synchronized (writeLocks[stripe]) {
+                Map<Long, Product> changed = new LinkedHashMap<>();
+                List<InventoryMetrics.Contribution> before = new ArrayList<>();
+                List<QueryKey.Row> rows = new ArrayList<>();
+                for (StockUpdate update : bucket) {
+                    Product product = changed.get(update.getId());
+                    if (product == null) {
+                        product = repository.findById(update.getId()).orElse(null);
+                        if (product == null) {
+                            notFound.add(update.getId());
+                            continue;
+                        }
+                        before.add(InventoryMetrics.Contribution.of(product));
+                        rows.add(QueryKey.Row.of(product));
+                        changed.put(update.getId(), product);
+                    }
+                    product.setStock(update.getQuantity());
+                    product.setUpdatedAt(today);
+                    updated++;
+                }
+                if (!changed.isEmpty()) {
+                    changed.values().forEach(product -> rows.add(QueryKey.Row.of(product)));
+                    invalidate(rows);
+                    repository.saveAll(new ArrayList<>(changed.values()));
+                    metrics.replaceAll(before, changed.values());
+                    invalidate(rows);
+                    catalogVersion.bump();
+                }
+            }
+        }
+        return new StockUpdateResult(updated, notFound, invalid);
     }
 
     @Override
@@ -129,77 +479,91 @@ public class ProductService implements IProductService{
 
     @Override
     public ProductResponse deleteProductById(Long id){
-        Product deleted = repository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Product not found"));
-        this.repository.delete(id);
+        Product deleted;
+        synchronized (lockFor(id)) {
+            deleted = repository.findById(id)
+                    .orElseThrow(() -> new NoSuchElementException("Product not found"));
+            List<QueryKey.Row> rows = List.of(QueryKey.Row.of(deleted));
+            invalidate(rows);
+            this.repository.delete(id);
+            metrics.remove(deleted);
+            invalidate(rows);
+            catalogVersion.bump();
+        }
         return  setResponseProduct(deleted);
     }
 
     @Override
     public List<Metric> getGeneralMetrics(){
-        List<Metric> metrics = new ArrayList<Metric>();
-        List<Category> cats = this.categories.findAll();
-        int overallQuantity = 0;
-        double overallValue = 0;
-        for(Category category: cats){
-            List<Product> categoryProducts = this.repository.findAll().stream().filter(product -> product.getCategory().getId() == category.getId()).toList();
-            int quantity = categoryProducts.stream().map(Product::getStock).reduce(0, Integer::sum);
-            double value = categoryProducts.stream().map(product -> {return  product.getStock() * product.getUnitPrice();}).reduce(0.0, Double::sum);
-            double averagePrice = quantity > 0 ? value / quantity : 0;
-            overallQuantity+= quantity;
-            overallValue += value;
-
-            Metric categoryMetric = new Metric(category, quantity, value, averagePrice);
-            metrics.add(categoryMetric);
-        }
-        double overallAveragePrice = overallQuantity > 0 ? overallValue / overallQuantity : 0;
-        Category overallCategory = new Category();
-        overallCategory.setName("Overall");
-        Metric overalMetric = new Metric(overallCategory, overallQuantity, overallValue, overallAveragePrice);
-        metrics.add(overalMetric);
-        return metrics;
+        return metricsCache.get(catalogVersion.current(), () -> {
+            List<Category> categories = this.categories.findAll();
+            List<Metric> totals = snapshotMode ? null : metrics.metrics(categories);
+            return totals != null ? totals : snapshotMetrics.metrics(repository.snapshot(), categories);
+        });
     }
 
-    private void mapRequestToProduct(ProductRequest request, Product product) {
-        product.setName(request.getName());
-        product.setCategory(request.getCategory());
-        product.setUnitPrice(request.getUnitPrice());
-        product.setExpirationDate(request.getExpirationDate());
-        product.setStock(request.getStock());
+    /**
+     * Reads, mutates and saves a product, moving its contribution to the running metrics from the old values
+     * to the new ones. Writers of the same id are serialized on a lock stripe. Stores hand out copies, so the
+     * product is read inside the lock and the change is private until the save swaps it in.
+     */
+    private Product applyChange(Long id, Consumer<Product> change) {
+        synchronized (lockFor(id)) {
+            Product product = repository.findById(id)
+                    .orElseThrow(() -> new NoSuchElementException("Product not found"));
+            InventoryMetrics.Contribution before = InventoryMetrics.Contribution.of(product);
+            QueryKey.Row previous = QueryKey.Row.of(product);
+            change.accept(product);
+            product.setUpdatedAt(LocalDate.now());
+            List<QueryKey.Row> rows = List.of(previous, QueryKey.Row.of(product));
+            invalidate(rows);
+            Product saved = repository.save(product);
+            metrics.replace(before, saved);
+            invalidate(rows);
+            catalogVersion.bump();
+            return saved;
+        }
     }
 
-    private Comparator<Product> getMultiComparator(String sortByRaw, String directionRaw) {
-        String[] sortFields = sortByRaw != null ? sortByRaw.split("-") : new String[]{"name"};
-        String[] directions = directionRaw != null ? directionRaw.split("-") : new String[]{"asc"};
-
-        Comparator<Product> combined = getComparator(sortFields[0], directions.length > 0 ? directions[0] : "asc");
-
-        if (sortFields.length > 1) {
-            for (int i = 1; i < sortFields.length; i++) {
-                String field = sortFields[i];
-                String dir = i < directions.length ? directions[i] : "asc";
-                combined = combined.thenComparing(getComparator(field, dir));
-            }
+    // Plans are compiled once per distinct set of raw parameters
+    private ProductQuery plan(String name, String category, Boolean available, String sortBy, String direction) {
+        ProductQuery.Parameters parameters = new ProductQuery.Parameters(name, category, available, sortBy, direction);
+        ProductQuery plan = plans.get(parameters);
+        if (plan == null) {
+            plan = ProductQuery.compile(parameters);
+            plans.put(parameters, plan, plans.stamp());
         }
-
-        return combined;
+        return plan;
     }
 
-    private Comparator<Product> getComparator(String sortBy, String direction) {
-        Comparator<Product> comparator = switch (sortBy.toLowerCase()) {
-            case "category" -> Comparator.comparing((product) -> product.getCategory().getName(), String.CASE_INSENSITIVE_ORDER);
-            case "price" -> Comparator.comparing(Product::getUnitPrice);
-            case "stock" -> Comparator.comparing(Product::getStock);
-            case "expirationdate" -> Comparator.comparing(product -> Optional.ofNullable(product.getExpirationDate()).orElse(LocalDate.MAX));
-            default -> Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER);
-        };
+    /**
+     * Drops the cached results of every query the written rows could match, before or after the write. Writers
+     * call it both before the write becomes visible, so no reader is served the old result alongside new rows,
+     * and after it, which also rejects results being built from a match taken before the write.
+     */
+    private void invalidate(List<QueryKey.Row> rows) {
+        queryCache.invalidateIf(key -> key.couldMatchAny(rows));
+    }
 
-        if ("desc".equalsIgnoreCase(direction)) {
-            comparator = comparator.reversed();
-        }
+    @Override
+    public CacheStats getCacheStats() {
+        TinyLfuCache.Stats stats = queryCache.stats();
+        return new CacheStats(stats.hits(), stats.misses(), stats.evictions(), stats.invalidations(), stats.size(), stats.weight());
+    }
 
-        return comparator;
+    private Object lockFor(Long id) {
+        return writeLocks[stripeOf(id)];
     }
 
+    private int stripeOf(Long id) {
+        return Long.hashCode(id) & (writeLocks.length - 1);
+    }
 
+    private void mapRequestToProduct(ProductRequest request, Product product) {
+        product.setName(request.getName());
+        product.setCategory(request.getCategory());
+        product.setUnitPrice(request.getUnitPrice());
+        product.setExpirationDate(request.getExpirationDate());
+        product.setStock(request.getStock());
+    }
 }
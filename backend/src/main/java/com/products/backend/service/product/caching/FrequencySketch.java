@@ -0,0 +1,60 @@
+package com.products.backend.service.product.caching;
+
+/**
+ * Count-min sketch of how often keys were asked for, with counters capped at 15 and all halved once enough
+ * increments were recorded, so old popularity fades. Not thread-safe, TinyLfuCache calls it under its lock.
+ */
+class FrequencySketch {
+    private static final int[] SEEDS = {0x97cb3127, 0xb4c5f1d3, 0x1b873593, 0x85ebca6b};
+    private static final int MAX_COUNT = 15;
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int width = Integer.highestOneBit(Math.max(16, capacity * 4) - 1) << 1;
+        this.counters = new byte[SEEDS.length][width];
+        this.mask = width - 1;
+        this.sampleSize = 10 * Math.max(16, capacity);
+    }
+
+    void increment(Object key) {
+        int hash = key.hashCode();
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int at = index(hash, row);
+            if (counters[row][at] < MAX_COUNT) {
+                counters[row][at]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(Object key) {
+        int hash = key.hashCode();
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) {
+            frequency = Math.min(frequency, counters[row][index(hash, row)]);
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+        int seeded = (hash ^ SEEDS[row]) * 0x9e3779b9;
+        return (seeded ^ (seeded >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,62 @@
+package com.products.backend.service.product.caching;
+
+import com.products.backend.model.Product;
+import com.products.backend.repository.index.NameTokens;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A GET /products query without its page: the filters and the sort once defaults are applied,
+ * so every page of the same query shares one cached result.
+ */
+public record QueryKey(String name, boolean relevance, Set<Long> categories, Boolean available, String sortBy,
+                       String direction) {
+
+    public QueryKey {
+        categories = Set.copyOf(categories);
+    }
+
+    /**
+     * The values of a product the filters look at, taken before and after a write. A write can only change
+     * the result of queries that one of the two states could match.
+     */
+    public record Row(Long categoryId, boolean inStock, String name) {
+        public static Row of(Product product) {
+            return new Row(product.getCategory() != null ? product.getCategory().getId() : null,
+                    product.getStock() != null && product.getStock() > 0,
+                    product.getName() != null ? product.getName().toLowerCase() : "");
+        }
+    }
+
+    // Conservative, a relevance search is treated as matching any name containing all its words
+    public boolean couldMatch(Row row) {
+        if (!categories.isEmpty() && (row.categoryId() == null || !categories.contains(row.categoryId()))) {
+            return false;
+        }
+        if (available != null && available != row.inStock()) {
+            return false;
+        }
+        if (name == null) {
+            return true;
+        }
+        if (!relevance) {
+            return row.name().contains(name);
+        }
+        for (String term : NameTokens.split(name)) {
+            if (!row.name().contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean couldMatchAny(List<Row> rows) {
+        for (Row row : rows) {
+            if (couldMatch(row)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,224 @@
+package com.products.backend.service.product.caching;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded cache with W-TinyLFU eviction. New entries land in a small LRU window, entries leaving the window
+ * only enter the main area if the frequency sketch says they are asked for more often than the entries they
+ * would replace. The main area is a segmented LRU: a hit in probation promotes to protected, protected
+ * overflow goes back to probation. A burst of one-off queries therefore cannot flush the popular ones.
+ * Both the number of entries and their total weight are bounded, each area gets its share of both.
+ *
+ * Every invalidation advances a stamp and is remembered for a while, and a value computed before an
+ * invalidation that covers its key is not stored. A put older than the remembered invalidations is refused.
+ */
+public class TinyLfuCache<K, V> {
+    private static final int REMEMBERED_INVALIDATIONS = 1024;
+
+    private final int capacity;
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final int protectedCapacity;
+    private final long maxWeight;
+    private final long windowMaxWeight;
+    private final long mainMaxWeight;
+    private final long protectedMaxWeight;
+    private final ToIntFunction<V> weigher;
+    // Insertion ordered, re-putting an entry moves it to the most recently used end
+    private final LinkedHashMap<K, V> window = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> protectedArea = new LinkedHashMap<>();
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+    private final FrequencySketch sketch;
+    // The latest invalidations, oldest first, their stamps run up to stamp without gaps
+    private final ArrayDeque<Predicate<K>> invalidated = new ArrayDeque<>();
+    private long stamp;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    // Every entry weighs one, the capacity bounds the entry count only
+    public TinyLfuCache(int capacity) {
+        this(capacity, capacity, value -> 1);
+    }
+
+    public TinyLfuCache(int capacity, long maxWeight, ToIntFunction<V> weigher) {
+        this.capacity = Math.max(0, capacity);
+        this.windowCapacity = Math.max(1, this.capacity / 100);
+        this.mainCapacity = Math.max(0, this.capacity - windowCapacity);
+        this.protectedCapacity = mainCapacity * 4 / 5;
+        this.maxWeight = Math.max(0, maxWeight);
+        this.windowMaxWeight = Math.max(1, this.maxWeight / 100);
+        this.mainMaxWeight = Math.max(0, this.maxWeight - windowMaxWeight);
+        this.protectedMaxWeight = mainMaxWeight * 4 / 5;
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch(this.capacity);
+    }
+
+    public record Stats(long hits, long misses, long evictions, long invalidations, int size, long weight) {
+    }
+
+    // Counts the access towards the key's frequency, whether it hits or not
+    public synchronized V get(K key) {
+        if (capacity == 0) {
+            misses++;
+            return null;
+        }
+        sketch.increment(key);
+        V value = window.remove(key);
+        if (value != null) {
+            window.put(key, value);
+        } else if ((value = probation.remove(key)) != null) {
+            int weight = weigher.applyAsInt(value);
+            probationWeight -= weight;
+            protectedArea.put(key, value);
+            protectedWeight += weight;
+            while (protectedArea.size() > protectedCapacity || protectedWeight > protectedMaxWeight) {
+                Map.Entry<K, V> demoted = removeEldest(protectedArea);
+                int demotedWeight = weigher.applyAsInt(demoted.getValue());
+                protectedWeight -= demotedWeight;
+                probation.put(demoted.getKey(), demoted.getValue());
+                probationWeight += demotedWeight;
+            }
+        } else if ((value = protectedArea.remove(key)) != null) {
+            protectedArea.put(key, value);
+        }
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    // Estimated number of recent requests for the key
+    public synchronized int frequency(K key) {
+        return sketch.frequency(key);
+    }
+
+    // Taken before computing a value to put
+    public synchronized long stamp() {
+        return stamp;
+    }
+
+    // Stores the value unless an invalidation since the stamp was taken could have covered the key
+    public synchronized boolean put(K key, V value, long stamp) {
+        if (capacity == 0 || maxWeight == 0 || invalidatedSince(key, stamp)) {
+            return false;
+        }
+        remove(key);
+        window.put(key, value);
+        windowWeight += weigher.applyAsInt(value);
+        while (window.size() > windowCapacity || windowWeight > windowMaxWeight) {
+            Map.Entry<K, V> candidate = removeEldest(window);
+            windowWeight -= weigher.applyAsInt(candidate.getValue());
+            admit(candidate.getKey(), candidate.getValue());
+        }
+        return true;
+    }
+
+    public synchronized void invalidateIf(Predicate<K> affected) {
+        stamp++;
+        invalidated.addLast(affected);
+        if (invalidated.size() > REMEMBERED_INVALIDATIONS) {
+            invalidated.removeFirst();
+        }
+        windowWeight -= removeIf(window, affected);
+        probationWeight -= removeIf(probation, affected);
+        protectedWeight -= removeIf(protectedArea, affected);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, invalidations, window.size() + probation.size() + protectedArea.size(),
+                windowWeight + probationWeight + protectedWeight);
+    }
+
+    private boolean invalidatedSince(K key, long stamp) {
+        long since = this.stamp - stamp;
+        if (since > invalidated.size()) {
+            return true;
+        }
+        Iterator<Predicate<K>> latest = invalidated.descendingIterator();
+        for (long i = 0; i < since; i++) {
+            if (latest.next().test(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves an entry leaving the window into probation, evicting main area entries for it as long as it is
+     * asked for more often than each of them. An entry losing to a victim is dropped, one too heavy for the
+     * whole main area never gets in.
+     */
+    private void admit(K key, V value) {
+        int weight = weigher.applyAsInt(value);
+        if (weight > mainMaxWeight) {
+            evictions++;
+            return;
+        }
+        while (probation.size() + protectedArea.size() >= mainCapacity
+                || probationWeight + protectedWeight + weight > mainMaxWeight) {
+            boolean fromProbation = !probation.isEmpty();
+            LinkedHashMap<K, V> victims = fromProbation ? probation : protectedArea;
+            evictions++;
+            if (victims.isEmpty()) {
+                return;
+            }
+            Map.Entry<K, V> victim = victims.entrySet().iterator().next();
+            if (sketch.frequency(key) <= sketch.frequency(victim.getKey())) {
+                return;
+            }
+            int victimWeight = weigher.applyAsInt(victim.getValue());
+            victims.remove(victim.getKey());
+            if (fromProbation) {
+                probationWeight -= victimWeight;
+            } else {
+                protectedWeight -= victimWeight;
+            }
+        }
+        probation.put(key, value);
+        probationWeight += weight;
+    }
+
+    private void remove(K key) {
+        V value;
+        if ((value = window.remove(key)) != null) {
+            windowWeight -= weigher.applyAsInt(value);
+        } else if ((value = probation.remove(key)) != null) {
+            probationWeight -= weigher.applyAsInt(value);
+        } else if ((value = protectedArea.remove(key)) != null) {
+            protectedWeight -= weigher.applyAsInt(value);
+        }
+    }
+
+    // Returns the weight removed
+    private long removeIf(LinkedHashMap<K, V> segment, Predicate<K> affected) {
+        long removed = 0;
+        for (Iterator<Map.Entry<K, V>> entries = segment.entrySet().iterator(); entries.hasNext(); ) {
+            Map.Entry<K, V> entry = entries.next();
+            if (affected.test(entry.getKey())) {
+                removed += weigher.applyAsInt(entry.getValue());
+                entries.remove();
+                invalidations++;
+            }
+        }
+        return removed;
+    }
+
+    private static <K, V> Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> segment) {
+        Map.Entry<K, V> eldest = segment.entrySet().iterator().next();
+        Map.Entry<K, V> entry = Map.entry(eldest.getKey(), eldest.getValue());
+        segment.remove(eldest.getKey());
+        return entry;
+    }
+}
@@ -0,0 +1,32 @@
+package com.products.backend.service.product.caching;
+
+import java.util.function.Supplier;
+
+/**
+ * The latest result computed from the catalog, tagged with the catalog version it was computed at. A request
+ * at another version computes the result again and replaces it, so writes never need to invalidate anything.
+ * Computed outside any lock, two requests at a new version may both compute it.
+ */
+public class VersionedResult<V> {
+    private record Entry<V>(long version, V value) {
+    }
+
+    private final boolean enabled;
+    private volatile Entry<V> latest;
+
+    public VersionedResult(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public V get(long version, Supplier<V> compute) {
+        Entry<V> cached = latest;
+        if (cached != null && cached.version() == version) {
+            return cached.value();
+        }
+        V value = compute.get();
+        if (enabled) {
+            latest = new Entry<>(version, value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,26 @@
+package com.products.backend.service.product.exporting;
+
+import org.springframework.http.MediaType;
+
+public enum ExportFormat {
+    CSV(MediaType.parseMediaType("text/csv")),
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"));
+
+    private final MediaType mediaType;
+
+    ExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public static ExportFormat from(String format) {
+        return switch (format == null ? "ndjson" : format.toLowerCase()) {
+            case "csv" -> CSV;
+            case "ndjson" -> NDJSON;
+            default -> throw new IllegalArgumentException("Unsupported export format: " + format);
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.products.backend.service.product.exporting;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.products.backend.dto.product.ProductResponse;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Writes exported products to a response body through a fixed-size buffer, one row per product.
+ * The CSV header uses the columns POST /products/import reads, so an export can be imported again.
+ */
+public class ProductExportWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,name,category,categoryName,unitPrice,expirationDate,stock,updatedAt\n";
+
+    private final ExportFormat format;
+    private final ObjectMapper mapper;
+    private final OutputStream out;
+    private final Writer text;
+
+    public ProductExportWriter(OutputStream out, ExportFormat format, ObjectMapper mapper) throws IOException {
+        this.format = format;
+        this.mapper = mapper;
+        this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+        this.text = new OutputStreamWriter(this.out, StandardCharsets.UTF_8);
+        if (format == ExportFormat.CSV) {
+            text.write(CSV_HEADER);
+        }
+    }
+
+    public void write(ProductResponse product) {
+        try {
+            if (format == ExportFormat.NDJSON) {
+                // NDJSON rows go straight to the buffer, it reaches the response only when full or finished
+                out.write(mapper.writeValueAsBytes(product));
+                out.write('\n');
+                return;
+            }
+            text.write(String.valueOf(product.getId()));
+            text.write(',');
+            text.write(quote(product.getName()));
+            text.write(',');
+            text.write(product.getCategory() != null ? String.valueOf(product.getCategory().getId()) : "");
+            text.write(',');
+            text.write(product.getCategory() != null ? quote(product.getCategory().getName()) : "");
+            text.write(',');
+            text.write(product.getUnitPrice() != null ? String.valueOf(product.getUnitPrice()) : "");
+            text.write(',');
+            text.write(date(product.getExpirationDate()));
+            text.write(',');
+            text.write(product.getStock() != null ? String.valueOf(product.getStock()) : "");
+            text.write(',');
+            text.write(date(product.getUpdatedAt()));
+            text.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() throws IOException {
+        text.flush();
+        out.flush();
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String date(LocalDate date) {
+        return date != null ? date.toString() : "";
+    }
+}
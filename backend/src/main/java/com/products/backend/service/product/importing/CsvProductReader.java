@@ -0,0 +1,121 @@
+package com.products.backend.service.product.importing;
+
+import com.products.backend.dto.product.ProductRequest;
+import com.products.backend.model.Category;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CSV with a header row naming the columns: name, category (an id), unitPrice, expirationDate (yyyy-MM-dd)
+ * and stock, in any order. Fields may be double-quoted, with "" for a quote, and quoted fields may span lines,
+ * so the export's CSV reads back. Rows are reported at the line they start on.
+ */
+class CsvProductReader implements ProductRowReader {
+    private final BufferedReader reader;
+    private Map<String, Integer> columns;
+    private long line;
+
+    CsvProductReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            line++;
+            if (text == null) {
+                return null;
+            }
+        } while (text.isBlank());
+
+        long start = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        // A quoted field still open at the end of a line goes on with the next one
+        boolean quoted = split(text, false, fields, field);
+        while (quoted) {
+            text = reader.readLine();
+            if (text == null) {
+                return ImportRow.failed(start, "Unterminated quoted field");
+            }
+            line++;
+            field.append('\n');
+            quoted = split(text, true, fields, field);
+        }
+        if (columns == null) {
+            columns = new HashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                columns.put(fields.get(i).trim().toLowerCase(), i);
+            }
+            return next();
+        }
+
+        try {
+            ProductRequest request = new ProductRequest();
+            request.setName(field(fields, "name"));
+            String category = field(fields, "category");
+            if (category != null) {
+                Category reference = new Category();
+                reference.setId(Long.parseLong(category));
+                request.setCategory(reference);
+            }
+            String unitPrice = field(fields, "unitprice");
+            request.setUnitPrice(unitPrice != null ? Double.parseDouble(unitPrice) : null);
+            String expirationDate = field(fields, "expirationdate");
+            request.setExpirationDate(expirationDate != null ? LocalDate.parse(expirationDate) : null);
+            String stock = field(fields, "stock");
+            request.setStock(stock != null ? Integer.parseInt(stock) : null);
+            return ImportRow.parsed(start, request);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return ImportRow.failed(start, "Invalid value: " + e.getMessage());
+        }
+    }
+
+    // Null for missing or empty fields
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Adds the fields the line completes, returns whether it ends inside a quoted field, left in field
+    private static boolean split(String text, boolean quoted, List<String> fields, StringBuilder field) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return true;
+        }
+        fields.add(field.toString());
+        return false;
+    }
+}
@@ -0,0 +1,16 @@
+package com.products.backend.service.product.importing;
+
+public enum ImportFormat {
+    CSV,
+    NDJSON;
+
+    public static ImportFormat fromContentType(String contentType) {
+        if (contentType != null && contentType.toLowerCase().startsWith("text/csv")) {
+            return CSV;
+        }
+        if (contentType != null && contentType.toLowerCase().startsWith("application/x-ndjson")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Unsupported import content type: " + contentType);
+    }
+}
@@ -0,0 +1,36 @@
+package com.products.backend.service.product.importing;
+
+import com.products.backend.dto.product.ProductRequest;
+
+// One parsed line of an import, either a request to validate or the reason it could not be parsed
+class ImportRow {
+    private final long line;
+    private final ProductRequest request;
+    private final String error;
+
+    private ImportRow(long line, ProductRequest request, String error) {
+        this.line = line;
+        this.request = request;
+        this.error = error;
+    }
+
+    static ImportRow parsed(long line, ProductRequest request) {
+        return new ImportRow(line, request, null);
+    }
+
+    static ImportRow failed(long line, String error) {
+        return new ImportRow(line, null, error);
+    }
+
+    long getLine() {
+        return line;
+    }
+
+    ProductRequest getRequest() {
+        return request;
+    }
+
+    String getError() {
+        return error;
+    }
+}
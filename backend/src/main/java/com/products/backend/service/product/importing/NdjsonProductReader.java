@@ -0,0 +1,39 @@
+package com.products.backend.service.product.importing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.products.backend.dto.product.ProductRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+// One ProductRequest JSON object per line, the same shape POST /products accepts
+class NdjsonProductReader implements ProductRowReader {
+    private final BufferedReader reader;
+    private final ObjectReader requestReader;
+    private long line;
+
+    NdjsonProductReader(BufferedReader reader, ObjectMapper mapper) {
+        this.reader = reader;
+        this.requestReader = mapper.readerFor(ProductRequest.class);
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            line++;
+            if (text == null) {
+                return null;
+            }
+        } while (text.isBlank());
+
+        try {
+            return ImportRow.parsed(line, requestReader.readValue(text));
+        } catch (JsonProcessingException e) {
+            return ImportRow.failed(line, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.products.backend.service.product.importing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.products.backend.dto.product.ImportError;
+import com.products.backend.dto.product.ImportSummary;
+import com.products.backend.dto.product.ProductRequest;
+import com.products.backend.model.Category;
+import com.products.backend.repository.CategoryRepository;
+import com.products.backend.service.product.IProductService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import. Rows are parsed and validated as they are read and valid ones are created in batches,
+ * so a catalog of any size goes through in constant memory with one repository write per batch.
+ * Rejected rows are reported as they are found and do not stop the import.
+ */
+@Service
+public class ProductImporter {
+    private final IProductService productService;
+    private final CategoryRepository categories;
+    private final Validator validator;
+    private final ObjectMapper mapper;
+    private final int batchSize;
+
+    public ProductImporter(IProductService productService, CategoryRepository categories, Validator validator, ObjectMapper mapper,
+                           @Value("${products.import.batch-size:1000}") int batchSize) {
+        this.productService = productService;
+        this.categories = categories;
+        this.validator = validator;
+        this.mapper = mapper;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public ImportSummary importProducts(InputStream body, ImportFormat format, Consumer<ImportError> errors) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        ProductRowReader rows = format == ImportFormat.CSV ? new CsvProductReader(reader) : new NdjsonProductReader(reader, mapper);
+
+        List<ProductRequest> batch = new ArrayList<>(batchSize);
+        long imported = 0;
+        long failed = 0;
+        for (ImportRow row = rows.next(); row != null; row = rows.next()) {
+            String error = row.getError() != null ? row.getError() : check(row.getRequest());
+            if (error != null) {
+                failed++;
+                errors.accept(new ImportError(row.getLine(), error));
+                continue;
+            }
+            batch.add(row.getRequest());
+            if (batch.size() == batchSize) {
+                imported += flush(batch);
+            }
+        }
+        imported += flush(batch);
+        return new ImportSummary(imported, failed);
+    }
+
+    // Applies the same constraints as POST /products and swaps the category reference for the stored category
+    private String check(ProductRequest request) {
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        if (request.getCategory() != null) {
+            Category category = categories.findById(request.getCategory().getId());
+            if (category == null) {
+                return "Unknown category " + request.getCategory().getId();
+            }
+            request.setCategory(category);
+        }
+        return null;
+    }
+
+    private int flush(List<ProductRequest> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int created = productService.createProducts(batch).size();
+        batch.clear();
+        return created;
+    }
+}
@@ -0,0 +1,9 @@
+package com.products.backend.service.product.importing;
+
+import java.io.IOException;
+
+// Pulls rows off an import body one line at a time, the body is never held in memory as a whole
+interface ProductRowReader {
+    // The next non-blank row, or null at the end of the body
+    ImportRow next() throws IOException;
+}
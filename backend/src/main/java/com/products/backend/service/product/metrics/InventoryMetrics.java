@@ -0,0 +1,165 @@
+package com.products.backend.service.product.metrics;
+
+import com.products.backend.classes.metrics.Metric;
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running stock totals per category, kept up to date with deltas on every write
+ * so the metrics endpoint never has to look at individual products.
+ * Writes are bracketed by two counters, a read that saw no write start or finish while it summed
+ * the categories returned totals of one state, otherwise the caller falls back to a snapshot.
+ * Values are kept in whole cents, so taking a product out again removes exactly what it added and the
+ * running totals never drift from a full recompute.
+ */
+public class InventoryMetrics {
+    private static final int READ_ATTEMPTS = 3;
+
+    private final Map<Long, CategoryTotals> totals = new ConcurrentHashMap<>();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+
+    /**
+     * What one product adds to the totals, taken before a change so the exact amounts can be moved
+     * out again once the change is saved.
+     */
+    public record Contribution(Long categoryId, long quantity, long valueCents) {
+        private static final Contribution NONE = new Contribution(null, 0, 0);
+
+        public static Contribution of(Product product) {
+            if (product.getCategory() == null || product.getStock() == null || product.getUnitPrice() == null) {
+                return NONE;
+            }
+            return new Contribution(product.getCategory().getId(), product.getStock(), centsOf(product.getStock(), product.getUnitPrice()));
+        }
+    }
+
+    public InventoryMetrics(Collection<Product> products) {
+        applyAll(List.of(), products);
+    }
+
+    // Stock value in cents, the price is rounded to the cent before it is multiplied
+    static long centsOf(int stock, double unitPrice) {
+        return stock * Math.round(unitPrice * 100);
+    }
+
+    // Counts the product's current stock and value in
+    public void add(Product product) {
+        started.incrementAndGet();
+        apply(Contribution.of(product), 1);
+        finished.incrementAndGet();
+    }
+
+    // Counts a batch in with one update per category instead of one per product
+    public void addAll(Collection<Product> products) {
+        replaceAll(List.of(), products);
+    }
+
+    // Takes a removed product's stock and value out
+    public void remove(Product product) {
+        started.incrementAndGet();
+        apply(Contribution.of(product), -1);
+        finished.incrementAndGet();
+    }
+
+    // Moves a changed product from what it contributed before the change to its saved values, as one write
+    public void replace(Contribution before, Product after) {
+        started.incrementAndGet();
+        apply(before, -1);
+        apply(Contribution.of(after), 1);
+        finished.incrementAndGet();
+    }
+
+    // Same for a batch, with one update per category
+    public void replaceAll(Collection<Contribution> before, Collection<Product> after) {
+        applyAll(before, after);
+    }
+
+    private void applyAll(Collection<Contribution> before, Collection<Product> after) {
+        Map<Long, long[]> deltas = new HashMap<>();
+        for (Contribution contribution : before) {
+            delta(deltas, contribution, -1);
+        }
+        for (Product product : after) {
+            delta(deltas, Contribution.of(product), 1);
+        }
+        started.incrementAndGet();
+        deltas.forEach((categoryId, delta) -> {
+            CategoryTotals categoryTotals = totals.computeIfAbsent(categoryId, id -> new CategoryTotals());
+            categoryTotals.quantity.add(delta[0]);
+            categoryTotals.valueCents.add(delta[1]);
+        });
+        finished.incrementAndGet();
+    }
+
+    // Totals of one state of the catalog, or null when writes kept interleaving with the read
+    public List<Metric> metrics(List<Category> categories) {
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            long writes = finished.get();
+            if (started.get() != writes) {
+                Thread.onSpinWait();
+                continue;
+            }
+            List<Metric> metrics = read(categories);
+            if (started.get() == writes) {
+                return metrics;
+            }
+        }
+        return null;
+    }
+
+    private List<Metric> read(List<Category> categories) {
+        List<Metric> metrics = new ArrayList<>(categories.size() + 1);
+        long overallQuantity = 0;
+        long overallCents = 0;
+        for (Category category : categories) {
+            CategoryTotals categoryTotals = totals.get(category.getId());
+            long quantity = categoryTotals != null ? categoryTotals.quantity.sum() : 0;
+            long cents = categoryTotals != null ? categoryTotals.valueCents.sum() : 0;
+            overallQuantity += quantity;
+            overallCents += cents;
+            metrics.add(metric(category, quantity, cents));
+        }
+        Category overallCategory = new Category();
+        overallCategory.setName("Overall");
+        metrics.add(metric(overallCategory, overallQuantity, overallCents));
+        return metrics;
+    }
+
+    static Metric metric(Category category, long quantity, long valueCents) {
+        double value = valueCents / 100.0;
+        return new Metric(category, quantity, value, quantity > 0 ? value / quantity : 0);
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        if (contribution.categoryId() == null) {
+            return;
+        }
+        CategoryTotals categoryTotals = totals.computeIfAbsent(contribution.categoryId(), id -> new CategoryTotals());
+        categoryTotals.quantity.add(sign * contribution.quantity());
+        categoryTotals.valueCents.add(sign * contribution.valueCents());
+    }
+
+    private static void delta(Map<Long, long[]> deltas, Contribution contribution, int sign) {
+        if (contribution.categoryId() == null) {
+            return;
+        }
+        long[] delta = deltas.computeIfAbsent(contribution.categoryId(), id -> new long[2]);
+        delta[0] += sign * contribution.quantity();
+        delta[1] += sign * contribution.valueCents();
+    }
+
+    private static class CategoryTotals {
+        private final LongAdder quantity = new LongAdder();
+        private final LongAdder valueCents = new LongAdder();
+    }
+}
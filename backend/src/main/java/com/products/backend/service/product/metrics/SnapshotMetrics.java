@@ -0,0 +1,119 @@
+package com.products.backend.service.product.metrics;
+
+import com.products.backend.classes.metrics.Metric;
+import com.products.backend.model.Category;
+import com.products.backend.repository.index.IndexedProduct;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes every category metric and the overall metric in a single pass over a repository snapshot,
+ * accumulating into primitive arrays indexed by category position. Large snapshots are split across
+ * the common fork-join pool and the partial sums merged.
+ */
+public class SnapshotMetrics {
+    private final int parallelThreshold;
+
+    public SnapshotMetrics(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public List<Metric> metrics(IndexedProduct[] snapshot, List<Category> categories) {
+        Map<Long, Integer> slots = new HashMap<>();
+        for (int i = 0; i < categories.size(); i++) {
+            slots.put(categories.get(i).getId(), i);
+        }
+
+        Totals totals = snapshot.length >= parallelThreshold
+                ? ForkJoinPool.commonPool().invoke(new Slice(snapshot, slots, 0, snapshot.length, chunkSize(snapshot.length)))
+                : Totals.of(snapshot, slots, 0, snapshot.length);
+
+        List<Metric> metrics = new ArrayList<>(categories.size() + 1);
+        long overallQuantity = 0;
+        long overallCents = 0;
+        for (int i = 0; i < categories.size(); i++) {
+            long quantity = totals.quantity[i];
+            long cents = totals.valueCents[i];
+            overallQuantity += quantity;
+            overallCents += cents;
+            metrics.add(InventoryMetrics.metric(categories.get(i), quantity, cents));
+        }
+        Category overallCategory = new Category();
+        overallCategory.setName("Overall");
+        metrics.add(InventoryMetrics.metric(overallCategory, overallQuantity, overallCents));
+        return metrics;
+    }
+
+    private static int chunkSize(int length) {
+        return Math.max(8192, length / (ForkJoinPool.getCommonPoolParallelism() * 4));
+    }
+
+    private static class Totals {
+        private final long[] quantity;
+        private final long[] valueCents;
+
+        private Totals(int categories) {
+            this.quantity = new long[categories];
+            this.valueCents = new long[categories];
+        }
+
+        private static Totals of(IndexedProduct[] snapshot, Map<Long, Integer> slots, int from, int to) {
+            Totals totals = new Totals(slots.size());
+            for (int i = from; i < to; i++) {
+                IndexedProduct product = snapshot[i];
+                Integer slot = product.getCategoryId() != null ? slots.get(product.getCategoryId()) : null;
+                if (slot != null) {
+                    totals.quantity[slot] += product.getStock();
+                    totals.valueCents[slot] += InventoryMetrics.centsOf(product.getStock(), product.getUnitPrice());
+                }
+            }
+            return totals;
+        }
+
+        private Totals merge(Totals other) {
+            for (int i = 0; i < quantity.length; i++) {
+                quantity[i] += other.quantity[i];
+                valueCents[i] += other.valueCents[i];
+            }
+            return this;
+        }
+    }
+
+    // Fork-join tasks are Serializable only by inheritance, slices are never serialized
+    private static class Slice extends RecursiveTask<Totals> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient IndexedProduct[] snapshot;
+        private final transient Map<Long, Integer> slots;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        private Slice(IndexedProduct[] snapshot, Map<Long, Integer> slots, int from, int to, int chunkSize) {
+            this.snapshot = snapshot;
+            this.slots = slots;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= chunkSize) {
+                return Totals.of(snapshot, slots, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            Slice left = new Slice(snapshot, slots, from, middle, chunkSize);
+            left.fork();
+            Totals right = new Slice(snapshot, slots, middle, to, chunkSize).compute();
+            return left.join().merge(right);
+        }
+    }
+}
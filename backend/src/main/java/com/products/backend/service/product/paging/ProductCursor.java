@@ -0,0 +1,65 @@
+package com.products.backend.service.product.paging;
+
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+
+import java.io.*;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for GET /products. It carries every sort key of the last product of a page plus
+ * its id, so the next page starts right after that product whatever its depth and whatever was inserted since.
+ * A cursor is only meaningful with the same filters and sort it was issued for.
+ */
+public final class ProductCursor {
+    private static final byte VERSION = 1;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private ProductCursor() {
+    }
+
+    public static String encode(Product last) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            out.writeLong(last.getId());
+            out.writeUTF(last.getName() != null ? last.getName() : "");
+            out.writeUTF(last.getCategory() != null && last.getCategory().getName() != null ? last.getCategory().getName() : "");
+            out.writeDouble(last.getUnitPrice() != null ? last.getUnitPrice() : 0);
+            out.writeInt(last.getStock() != null ? last.getStock() : 0);
+            out.writeLong(last.getExpirationDate() != null ? last.getExpirationDate().toEpochDay() : NO_DATE);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rebuilds a probe product holding the sort keys of the cursor, to be compared against
+     * live products with the query's comparator.
+     */
+    public static Product decode(String cursor) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Product probe = new Product();
+            probe.setId(in.readLong());
+            probe.setName(in.readUTF());
+            Category category = new Category();
+            category.setName(in.readUTF());
+            probe.setCategory(category);
+            probe.setUnitPrice(in.readDouble());
+            probe.setStock(in.readInt());
+            long epochDay = in.readLong();
+            probe.setExpirationDate(epochDay != NO_DATE ? LocalDate.ofEpochDay(epochDay) : null);
+            return probe;
+        } catch (IOException | IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.products.backend.service.product.paging;
+
+import com.products.backend.model.Product;
+import com.products.backend.repository.index.NameTokens;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Best match first ordering for name searches. Each query term scores by its best hit among the words of the name:
+ * a whole word beats a word prefix, which beats a match inside a word, and a hit on the first word gets a bonus.
+ * Equal scores go to the shorter name, then name order, then id, so pages and cursors stay stable.
+ */
+public final class RelevanceOrder {
+    private static final int WORD = 8;
+    private static final int PREFIX = 4;
+    private static final int INSIDE = 1;
+    private static final int FIRST_WORD = 1;
+
+    private RelevanceOrder() {
+    }
+
+    // Scores are cached per product instance, the comparator is meant for a single request
+    public static Comparator<Product> of(List<String> terms) {
+        Map<Product, Integer> scores = new IdentityHashMap<>();
+        Comparator<Product> byScore = Comparator.comparingInt(product -> scores.computeIfAbsent(product, p -> score(name(p), terms)));
+        return byScore.reversed()
+                .thenComparingInt(product -> name(product).length())
+                .thenComparing(RelevanceOrder::name, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(Product::getId, Comparator.nullsLast(Comparator.<Long>naturalOrder()));
+    }
+
+    public static int score(String name, List<String> terms) {
+        List<String> words = NameTokens.split(name.toLowerCase());
+        int score = 0;
+        for (String term : terms) {
+            int best = 0;
+            for (int i = 0; i < words.size(); i++) {
+                String word = words.get(i);
+                int hit = word.equals(term) ? WORD : word.startsWith(term) ? PREFIX : word.contains(term) ? INSIDE : 0;
+                if (hit > 0 && i == 0) {
+                    hit += FIRST_WORD;
+                }
+                best = Math.max(best, hit);
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private static String name(Product product) {
+        return product.getName() != null ? product.getName() : "";
+    }
+}
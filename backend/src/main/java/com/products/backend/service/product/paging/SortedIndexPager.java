@@ -0,0 +1,72 @@
+package com.products.backend.service.product.paging;
+
+import com.products.backend.model.Product;
+import com.products.backend.repository.index.IndexedProduct;
+import com.products.backend.repository.index.ProductMatch;
+import com.products.backend.repository.index.SortField;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads a page by walking the sorted index of the primary sort field.
+ * Groups before the page are only counted, and the remaining sort fields are applied
+ * inside the groups that overlap the page, so no page ever sorts the whole catalog.
+ * The index has no ranks under a filter, so an offset page still walks past the rows before it, from
+ * whichever end is closer: its cost grows with min(offset, matches - offset). Deep pagination should follow
+ * the cursor instead, which seeks straight to its key.
+ */
+public final class SortedIndexPager {
+
+    private SortedIndexPager() {
+    }
+
+    public static List<Product> page(ProductMatch match, SortField primary, boolean descending,
+                                     Comparator<Product> order, long offset, int limit) {
+        long remaining = match.size() - offset;
+        if (limit <= 0 || remaining <= 0) {
+            return List.of();
+        }
+        if (offset > remaining) {
+            // Past the middle, the page is read in reverse from the end and turned back around
+            int count = (int) Math.min(limit, remaining);
+            List<Product> page = walk(match.sortedGroups(primary, !descending), match, order.reversed(), null, remaining - count, count);
+            Collections.reverse(page);
+            return page;
+        }
+        return walk(match.sortedGroups(primary, descending), match, order, null, offset, limit);
+    }
+
+    // Keyset variant: seeks to the cursor's key and returns the products ordered after it
+    public static List<Product> pageAfter(ProductMatch match, SortField primary, boolean descending,
+                                          Comparator<Product> order, Product after, int limit) {
+        return walk(match.sortedGroups(primary, descending, after), match, order, after, 0, limit);
+    }
+
+    private static List<Product> walk(Iterator<List<IndexedProduct>> groups, ProductMatch match,
+                                      Comparator<Product> order, Product after, long offset, int limit) {
+        List<Product> page = new ArrayList<>(Math.max(0, Math.min(limit, match.size())));
+        long toSkip = offset;
+
+        while (page.size() < limit && groups.hasNext()) {
+            List<IndexedProduct> group = groups.next();
+            if (toSkip >= group.size()) {
+                toSkip -= group.size();
+                continue;
+            }
+            List<Product> members = new ArrayList<>(group.size());
+            for (IndexedProduct entry : group) {
+                Product product = match.resolve(entry);
+                if (product != null && (after == null || order.compare(product, after) > 0)) {
+                    members.add(product);
+                }
+            }
+            page.addAll(TopKSelector.page(members, order, toSkip, limit - page.size()));
+            toSkip = 0;
+        }
+        return page;
+    }
+}
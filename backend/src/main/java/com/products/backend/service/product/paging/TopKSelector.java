@@ -0,0 +1,46 @@
+package com.products.backend.service.product.paging;
+
+import java.util.*;
+
+/**
+ * Selects one page of an ordered result without sorting the whole result.
+ * Only the first offset + limit elements are kept in a bounded max-heap, so a page costs
+ * O(n log k) instead of O(n log n) for the shallow pages users actually browse.
+ */
+public final class TopKSelector {
+
+    private TopKSelector() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> page(Collection<T> items, Comparator<? super T> order, long offset, int limit) {
+        int n = items.size();
+        if (limit <= 0 || offset >= n) {
+            return List.of();
+        }
+        int k = (int) Math.min(n, offset + limit);
+
+        // Once the window covers most of the input a plain sort is cheaper than heap churn.
+        if (k > n / 2) {
+            T[] sorted = (T[]) items.toArray();
+            Arrays.sort(sorted, order);
+            return Arrays.asList(sorted).subList((int) offset, k);
+        }
+
+        PriorityQueue<T> heap = new PriorityQueue<>(k, order.reversed());
+        for (T item : items) {
+            if (heap.size() < k) {
+                heap.add(item);
+            } else if (order.compare(item, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(item);
+            }
+        }
+
+        Object[] window = new Object[heap.size()];
+        for (int i = window.length - 1; i >= 0; i--) {
+            window[i] = heap.poll();
+        }
+        return (List<T>) Arrays.asList(window).subList((int) offset, window.length);
+    }
+}
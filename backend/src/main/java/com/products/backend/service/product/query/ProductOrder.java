@@ -0,0 +1,86 @@
+package com.products.backend.service.product.query;
+
+import com.products.backend.model.Product;
+import com.products.backend.repository.index.SortField;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+/**
+ * Multi-field product order resolved once per query plan. compare() walks the fields in a plain loop and reads
+ * the keys straight from the getters, instead of going through a chain of Comparator.comparing lambdas.
+ * Missing values sort like the sorted indexes hold them: empty name, zero price or stock, no date last.
+ * Ties end on the id so page boundaries are the same from one request to the next.
+ */
+public final class ProductOrder implements Comparator<Product> {
+    private final SortField[] fields;
+    private final boolean[] descending;
+
+    ProductOrder(SortField[] fields, boolean[] descending) {
+        this.fields = fields;
+        this.descending = descending;
+    }
+
+    public SortField primary() {
+        return fields[0];
+    }
+
+    public boolean isPrimaryDescending() {
+        return descending[0];
+    }
+
+    // Whether the primary field alone decides the order, ties then only fall back to the id
+    public boolean isSingleField() {
+        return fields.length == 1;
+    }
+
+    int fieldCount() {
+        return fields.length;
+    }
+
+    SortField field(int position) {
+        return fields[position];
+    }
+
+    boolean isDescending(int position) {
+        return descending[position];
+    }
+
+    @Override
+    public int compare(Product a, Product b) {
+        for (int i = 0; i < fields.length; i++) {
+            int order = compare(fields[i], a, b);
+            if (order != 0) {
+                return descending[i] ? -order : order;
+            }
+        }
+        Long left = a.getId();
+        Long right = b.getId();
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : 1) : -1;
+        }
+        return Long.compare(left, right);
+    }
+
+    private static int compare(SortField field, Product a, Product b) {
+        return switch (field) {
+            case NAME -> String.CASE_INSENSITIVE_ORDER.compare(name(a), name(b));
+            case CATEGORY -> String.CASE_INSENSITIVE_ORDER.compare(categoryName(a), categoryName(b));
+            case PRICE -> Double.compare(a.getUnitPrice() != null ? a.getUnitPrice() : 0, b.getUnitPrice() != null ? b.getUnitPrice() : 0);
+            case STOCK -> Integer.compare(a.getStock() != null ? a.getStock() : 0, b.getStock() != null ? b.getStock() : 0);
+            case EXPIRATION_DATE -> expiration(a).compareTo(expiration(b));
+        };
+    }
+
+    private static String name(Product product) {
+        return product.getName() != null ? product.getName() : "";
+    }
+
+    private static String categoryName(Product product) {
+        return product.getCategory() != null && product.getCategory().getName() != null ? product.getCategory().getName() : "";
+    }
+
+    private static LocalDate expiration(Product product) {
+        return product.getExpirationDate() != null ? product.getExpirationDate() : LocalDate.MAX;
+    }
+}
@@ -0,0 +1,104 @@
+package com.products.backend.service.product.query;
+
+import com.products.backend.model.Product;
+import com.products.backend.repository.index.NameTokens;
+import com.products.backend.repository.index.ProductFilter;
+import com.products.backend.repository.index.SortField;
+import com.products.backend.service.product.caching.QueryKey;
+import com.products.backend.service.product.paging.RelevanceOrder;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A GET /products or export query compiled from its raw parameters: the index filter, the resolved sort fields
+ * and the key of its cached result. Plans are immutable and shared between requests with the same parameters,
+ * only the relevance order carries per-request state and is created on each call to order().
+ */
+public final class ProductQuery {
+    // sortBy value that ranks a name search by relevance
+    public static final String RELEVANCE = "relevance";
+
+    private final ProductFilter filter;
+    private final QueryKey key;
+    private final ProductOrder order;
+    private final List<String> terms;
+
+    private ProductQuery(ProductFilter filter, QueryKey key, ProductOrder order, List<String> terms) {
+        this.filter = filter;
+        this.key = key;
+        this.order = order;
+        this.terms = terms;
+    }
+
+    /**
+     * The raw request parameters, used to look plans up. Category ids come dash separated, e.g. "1-3",
+     * as do sort fields and their directions, e.g. "price-name" and "desc-asc".
+     */
+    public record Parameters(String name, String category, Boolean available, String sortBy, String direction) {
+    }
+
+    public static ProductQuery compile(Parameters parameters) {
+        String name = parameters.name() != null && !parameters.name().isBlank() ? parameters.name().toLowerCase() : null;
+        String sortBy = parameters.sortBy() != null && !parameters.sortBy().isEmpty() ? parameters.sortBy().toLowerCase() : "name";
+        String direction = parameters.direction() != null && !parameters.direction().isEmpty() ? parameters.direction().toLowerCase() : "asc";
+        Set<Long> categories = categoryIds(parameters.category());
+        Boolean available = parameters.available();
+
+        // Relevance only means something for a name search, without one it falls back to name order
+        boolean relevance = RELEVANCE.equals(sortBy) && name != null;
+        String[] names = sortBy.split("-");
+        String[] directions = direction.split("-");
+        SortField[] fields = new SortField[names.length];
+        boolean[] descending = new boolean[names.length];
+        StringBuilder normalized = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            fields[i] = SortField.from(names[i]);
+            descending[i] = i < directions.length && "desc".equals(directions[i]);
+            normalized.append(i > 0 ? "-" : "").append(descending[i] ? "desc" : "asc");
+        }
+
+        ProductFilter filter = relevance
+                ? ProductFilter.search(name, categories, available)
+                : new ProductFilter(name, categories, available);
+        // One direction per sort field, so "name" + "asc-desc" and "name" + "asc" share a cached result
+        QueryKey key = new QueryKey(name, relevance, categories, available,
+                relevance ? RELEVANCE : sortBy, relevance ? "" : normalized.toString());
+        return new ProductQuery(filter, key, new ProductOrder(fields, descending), relevance ? NameTokens.split(name) : null);
+    }
+
+    public ProductFilter filter() {
+        return filter;
+    }
+
+    public QueryKey key() {
+        return key;
+    }
+
+    public boolean isRelevance() {
+        return terms != null;
+    }
+
+    // Order of the sort fields, also the order of the sorted index walk for non relevance queries
+    public ProductOrder sortOrder() {
+        return order;
+    }
+
+    // The order results come in, a fresh relevance order for searches since it caches scores per request
+    public Comparator<Product> order() {
+        return terms != null ? RelevanceOrder.of(terms) : order;
+    }
+
+    private static Set<Long> categoryIds(String category) {
+        if (category == null || category.isBlank()) {
+            return Set.of();
+        }
+        Set<Long> ids = new HashSet<>();
+        for (String id : category.split("-")) {
+            ids.add(Long.parseLong(id));
+        }
+        return ids;
+    }
+}
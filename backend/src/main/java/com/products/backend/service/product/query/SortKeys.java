@@ -0,0 +1,181 @@
+package com.products.backend.service.product.query;
+
+import com.products.backend.repository.index.CollationKey;
+import com.products.backend.repository.index.IndexedProduct;
+
+import java.io.Serial;
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Sorts index rows in a query's order on keys extracted once into columns: prices as order preserving long
+ * bits, stock and expiration epoch days as longs, names as the collation keys the rows already hold. The rows
+ * stay where they are, a permutation of their positions is merge sorted instead, with the halves sorted on the
+ * common fork-join pool above the parallel threshold. Compares exactly like ProductOrder does on the same products.
+ */
+public final class SortKeys {
+    private static final int INSERTION_SORT_RUN = 32;
+    private static final long NO_EXPIRATION = LocalDate.MAX.toEpochDay();
+
+    private final long[] ids;
+    // Per sort field, the numeric column or, for names, the collation key column
+    private final long[][] numbers;
+    private final byte[][][] texts;
+    private final boolean[] descending;
+
+    private SortKeys(IndexedProduct[] rows, ProductOrder order) {
+        int fields = order.fieldCount();
+        ids = new long[rows.length];
+        numbers = new long[fields][];
+        texts = new byte[fields][][];
+        descending = new boolean[fields];
+        for (int i = 0; i < rows.length; i++) {
+            ids[i] = rows[i].getId();
+        }
+        for (int f = 0; f < fields; f++) {
+            descending[f] = order.isDescending(f);
+            switch (order.field(f)) {
+                case NAME -> texts[f] = column(rows, IndexedProduct::getNameKey);
+                case CATEGORY -> texts[f] = column(rows, IndexedProduct::getCategoryKey);
+                case PRICE -> {
+                    long[] column = numbers[f] = new long[rows.length];
+                    for (int i = 0; i < rows.length; i++) {
+                        long bits = Double.doubleToLongBits(rows[i].getUnitPrice());
+                        // Flips the magnitude of negatives so the bits sort like Double.compare
+                        column[i] = bits ^ ((bits >> 63) & Long.MAX_VALUE);
+                    }
+                }
+                case STOCK -> {
+                    long[] column = numbers[f] = new long[rows.length];
+                    for (int i = 0; i < rows.length; i++) {
+                        column[i] = rows[i].getStock();
+                    }
+                }
+                case EXPIRATION_DATE -> {
+                    long[] column = numbers[f] = new long[rows.length];
+                    for (int i = 0; i < rows.length; i++) {
+                        LocalDate expiration = rows[i].getExpirationDate();
+                        column[i] = expiration != null ? expiration.toEpochDay() : NO_EXPIRATION;
+                    }
+                }
+            }
+        }
+    }
+
+    // Positions of the rows in the order's sequence
+    public static int[] sort(IndexedProduct[] rows, ProductOrder order, int parallelThreshold) {
+        SortKeys keys = new SortKeys(rows, order);
+        int[] positions = new int[rows.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        int[] scratch = new int[rows.length];
+        if (rows.length >= parallelThreshold) {
+            ForkJoinPool.commonPool().invoke(new Run(keys, positions, scratch, 0, rows.length, chunkSize(rows.length)));
+        } else {
+            keys.mergeSort(positions, scratch, 0, rows.length);
+        }
+        return positions;
+    }
+
+    private static int chunkSize(int length) {
+        return Math.max(8192, length / (ForkJoinPool.getCommonPoolParallelism() * 4));
+    }
+
+    private static byte[][] column(IndexedProduct[] rows, Function<IndexedProduct, byte[]> key) {
+        byte[][] column = new byte[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            column[i] = key.apply(rows[i]);
+        }
+        return column;
+    }
+
+    private int compare(int a, int b) {
+        for (int f = 0; f < descending.length; f++) {
+            long[] column = numbers[f];
+            int order = column != null
+                    ? Long.compare(column[a], column[b])
+                    : CollationKey.compare(texts[f][a], texts[f][b]);
+            if (order != 0) {
+                return descending[f] ? -order : order;
+            }
+        }
+        return Long.compare(ids[a], ids[b]);
+    }
+
+    private void mergeSort(int[] positions, int[] scratch, int from, int to) {
+        if (to - from <= INSERTION_SORT_RUN) {
+            insertionSort(positions, from, to);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(positions, scratch, from, middle);
+        mergeSort(positions, scratch, middle, to);
+        merge(positions, scratch, from, middle, to);
+    }
+
+    private void insertionSort(int[] positions, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int position = positions[i];
+            int j = i - 1;
+            while (j >= from && compare(positions[j], position) > 0) {
+                positions[j + 1] = positions[j];
+                j--;
+            }
+            positions[j + 1] = position;
+        }
+    }
+
+    private void merge(int[] positions, int[] scratch, int from, int middle, int to) {
+        // Already in order, common for data inserted in sort order
+        if (compare(positions[middle - 1], positions[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(positions, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && compare(scratch[left], scratch[right]) <= 0)) {
+                positions[i] = scratch[left++];
+            } else {
+                positions[i] = scratch[right++];
+            }
+        }
+    }
+
+    // Serializable only because RecursiveAction is, a run never leaves the sort that forked it
+    private static class Run extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient SortKeys keys;
+        private final int[] positions;
+        private final int[] scratch;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        private Run(SortKeys keys, int[] positions, int[] scratch, int from, int to, int chunkSize) {
+            this.keys = keys;
+            this.positions = positions;
+            this.scratch = scratch;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                keys.mergeSort(positions, scratch, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Run(keys, positions, scratch, from, middle, chunkSize),
+                    new Run(keys, positions, scratch, middle, to, chunkSize));
+            keys.merge(positions, scratch, from, middle, to);
+        }
+    }
+}
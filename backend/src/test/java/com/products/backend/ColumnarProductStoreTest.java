@@ -0,0 +1,122 @@
+package com.products.backend;
+
+import com.products.backend.dto.product.PaginatedProducts;
+import com.products.backend.dto.product.ProductRequest;
+import com.products.backend.dto.product.ProductResponse;
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+import com.products.backend.repository.CategoryRepository;
+import com.products.backend.repository.ProductRepository;
+import com.products.backend.repository.store.ColumnarProductStore;
+import com.products.backend.service.product.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarProductStoreTest {
+
+    private ColumnarProductStore store;
+    private Category food;
+
+    @BeforeEach
+    void setUp() {
+        store = new ColumnarProductStore();
+        food = new Category();
+        food.setId(1L);
+        food.setName("Food");
+    }
+
+    private Product product(long id, String name) {
+        Product product = new Product(name, "Food", 2.5, LocalDate.of(2025, 6, 1), 7);
+        product.setId(id);
+        product.setCategory(food);
+        product.setCreatedAt(LocalDate.of(2025, 1, 1));
+        return product;
+    }
+
+    @Test
+    void shouldRoundTripEveryColumnIncludingNulls() {
+        Product product = product(3, "Milk");
+        Product empty = new Product();
+        empty.setId(5L);
+        store.put(product);
+        store.put(empty);
+
+        Product read = store.get(3);
+        Product readEmpty = store.get(5);
+
+        assertEquals("Milk", read.getName());
+        assertEquals(1L, read.getCategory().getId());
+        assertEquals("Food", read.getCategory().getName());
+        assertEquals(2.5, read.getUnitPrice());
+        assertEquals(7, read.getStock());
+        assertEquals(LocalDate.of(2025, 6, 1), read.getExpirationDate());
+        assertEquals(LocalDate.of(2025, 1, 1), read.getCreatedAt());
+        assertNull(read.getUpdatedAt());
+        assertNull(readEmpty.getName());
+        assertNull(readEmpty.getCategory());
+        assertNull(readEmpty.getUnitPrice());
+        assertNull(readEmpty.getStock());
+        assertNull(readEmpty.getExpirationDate());
+        assertNull(store.get(4));
+    }
+
+    @Test
+    void shouldHandOutCopiesAndOverwriteOnPut() {
+        store.put(product(1, "Milk"));
+
+        Product copy = store.get(1);
+        copy.setStock(0);
+        assertEquals(7, store.get(1).getStock());
+
+        store.put(copy);
+        assertEquals(0, store.get(1).getStock());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void shouldReuseSlotsOfDeletedProducts() {
+        for (long id = 1; id <= 3000; id++) {
+            store.put(product(id, "Item " + id));
+        }
+        for (long id = 1; id <= 3000; id += 2) {
+            store.remove(id);
+        }
+        store.put(product(5000, "Late"));
+
+        assertEquals(1501, store.size());
+        assertNull(store.get(1));
+        assertEquals("Item 2", store.get(2).getName());
+        assertEquals("Late", store.get(5000).getName());
+        assertEquals(1501, store.values().size());
+    }
+
+    @Test
+    void shouldServeProductServiceWrites() {
+        CategoryRepository categories = new CategoryRepository();
+        categories.save("Food");
+        ProductService service = new ProductService(new ProductRepository(new ColumnarProductStore()), categories);
+        ProductRequest request = new ProductRequest();
+        request.setName("Bread");
+        request.setCategory(food);
+        request.setUnitPrice(1.5);
+        request.setStock(4);
+        ProductResponse bread = service.createProduct(request);
+        request.setName("Apple");
+        request.setStock(0);
+        service.createProduct(request);
+
+        service.markInStock(bread.getId(), 10);
+        PaginatedProducts available = service.getAllProducts(null, null, true, "name", "asc", 0, 10);
+        PaginatedProducts all = service.getAllProducts(null, null, null, "name", "asc", 0, 10);
+
+        assertEquals(List.of("Bread"), available.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(List.of("Apple", "Bread"), all.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(10, service.getGeneralMetrics().get(0).getQuantity());
+        assertEquals(15.0, service.getGeneralMetrics().get(0).getValue(), 1e-9);
+    }
+}
@@ -0,0 +1,174 @@
+package com.products.backend;
+
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+import com.products.backend.repository.CategoryRepository;
+import com.products.backend.repository.ProductRepository;
+import com.products.backend.repository.index.ProductFilter;
+import com.products.backend.repository.journal.FileJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private ProductRepository products = new ProductRepository();
+    private CategoryRepository categories = new CategoryRepository();
+
+    private FileJournal open() throws IOException {
+        products = new ProductRepository();
+        categories = new CategoryRepository();
+        return new FileJournal(directory, products, categories, 0);
+    }
+
+    private interface Session {
+        void run() throws Exception;
+    }
+
+    // Opens a journal over fresh repositories, runs the body against them and closes it again
+    private void session(Session body) throws Exception {
+        FileJournal journal = open();
+        try {
+            body.run();
+        } finally {
+            journal.close();
+        }
+    }
+
+    private Product product(String name, Category category, int stock) {
+        Product product = new Product(name, category.getName(), 1.5, LocalDate.of(2025, 6, 1), stock);
+        product.setCategory(category);
+        return product;
+    }
+
+    private List<String> names() {
+        return products.findAll().stream().map(Product::getName).sorted().toList();
+    }
+
+    @Test
+    void shouldReplayLoggedChangesAfterRestart() throws Exception {
+        session(() -> {
+            Category food = categories.save("Food");
+            Product milk = products.save(product("Milk", food, 5));
+            Product bread = products.save(product("Bread", food, 2));
+            milk.setStock(0);
+            products.save(milk);
+            products.delete(bread.getId());
+        });
+
+        session(() -> {
+            assertEquals(List.of("Milk"), names());
+            assertEquals(0, products.findById(1L).orElseThrow().getStock());
+            assertEquals("Food", categories.findById(1L).getName());
+            // Ids keep counting from where they were
+            assertEquals(3L, products.save(product("Cheese", categories.findById(1L), 1)).getId());
+            assertEquals(2L, categories.save("Cleaning").getId());
+        });
+    }
+
+    @Test
+    void shouldRestoreFromSnapshotAndDropSupersededFiles() throws Exception {
+        try (FileJournal journal = open()) {
+            Category food = categories.save("Food");
+            products.save(product("Milk", food, 5));
+            journal.snapshot();
+            products.save(product("Bread", food, 2));
+            journal.snapshot();
+            products.save(product("Cheese", food, 1));
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of("snapshot-3.bin", "wal-3.log"), files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+        session(() -> assertEquals(List.of("Bread", "Cheese", "Milk"), names()));
+    }
+
+    @Test
+    void shouldIgnoreTornTailOfTheLog() throws Exception {
+        session(() -> products.save(product("Milk", categories.save("Food"), 5)));
+        Files.write(directory.resolve("wal-1.log"), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        session(() -> {
+            assertEquals(List.of("Milk"), names());
+            products.save(product("Bread", categories.findById(1L), 5));
+        });
+        session(() -> assertEquals(List.of("Bread", "Milk"), names()));
+    }
+
+    @Test
+    void shouldReplayMultiRecordChangesWholeOrNotAtAll() throws Exception {
+        session(() -> {
+            Category food = categories.save("Food");
+            products.save(product("Milk", food, 5));
+            products.saveAll(List.of(product("Bread", food, 2), product("Cheese", food, 1)));
+        });
+        session(() -> assertEquals(List.of("Bread", "Cheese", "Milk"), names()));
+
+        // Tearing the end of the batch's frame loses the whole batch, never just its last row
+        Path log = directory.resolve("wal-1.log");
+        try (SeekableByteChannel channel = Files.newByteChannel(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        session(() -> assertEquals(List.of("Milk"), names()));
+    }
+
+    @Test
+    void shouldNotApplyChangesWhoseRecordsFailToSync() throws Exception {
+        FileJournal journal = open();
+        Product milk = products.save(product("Milk", categories.save("Food"), 5));
+        // A closed log fails every append, the way a log on a failed disk does
+        journal.close();
+
+        Product changed = products.findById(milk.getId()).orElseThrow();
+        changed.setStock(0);
+        assertThrows(IllegalStateException.class, () -> products.save(changed));
+        assertThrows(IllegalStateException.class, () -> products.save(product("Bread", categories.findById(1L), 2)));
+        assertThrows(IllegalStateException.class, () -> products.delete(milk.getId()));
+
+        assertEquals(List.of("Milk"), names());
+        assertEquals(5, products.findById(milk.getId()).orElseThrow().getStock());
+        assertTrue(products.findByFilter(new ProductFilter(null, Set.of(), false)).isEmpty());
+        session(() -> assertEquals(5, products.findById(milk.getId()).orElseThrow().getStock()));
+    }
+
+    @Test
+    void shouldKeepEveryConcurrentWrite() throws Exception {
+        session(() -> {
+            Category food = categories.save("Food");
+            ExecutorService writers = Executors.newFixedThreadPool(8);
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                done.add(writers.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        products.save(product("P" + thread + "-" + i, food, i));
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+            writers.shutdown();
+        });
+
+        session(() -> assertEquals(800, products.count()));
+    }
+}
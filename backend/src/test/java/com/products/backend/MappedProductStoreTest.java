@@ -0,0 +1,148 @@
+package com.products.backend;
+
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+import com.products.backend.repository.ProductRepository;
+import com.products.backend.repository.index.ProductFilter;
+import com.products.backend.repository.store.MappedProductStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedProductStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private Category food;
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("products.db");
+        food = new Category();
+        food.setId(1L);
+        food.setName("Food");
+    }
+
+    private Product product(long id, String name) {
+        Product product = new Product(name, "Food", 2.5, LocalDate.of(2025, 6, 1), 7);
+        product.setId(id);
+        product.setCategory(food);
+        product.setCreatedAt(LocalDate.of(2025, 1, 1));
+        return product;
+    }
+
+    private Product unsaved(String name) {
+        Product product = product(0, name);
+        product.setId(null);
+        return product;
+    }
+
+    @Test
+    void shouldKeepProductsAcrossReopen() throws Exception {
+        try (MappedProductStore store = new MappedProductStore(file, 4)) {
+            store.put(product(1, "Milk"));
+            Product unknownExpiration = product(2, "Bread");
+            unknownExpiration.setExpirationDate(null);
+            store.put(unknownExpiration);
+            store.remove(1);
+        }
+
+        try (MappedProductStore store = new MappedProductStore(file, 4)) {
+            assertEquals(1, store.size());
+            assertNull(store.get(1));
+            Product bread = store.get(2);
+            assertEquals("Bread", bread.getName());
+            assertEquals("Food", bread.getCategory().getName());
+            assertEquals(2.5, bread.getUnitPrice());
+            assertEquals(7, bread.getStock());
+            assertNull(bread.getExpirationDate());
+            assertEquals(LocalDate.of(2025, 1, 1), bread.getCreatedAt());
+        }
+    }
+
+    @Test
+    void shouldGrowPastInitialCapacityAndReuseFreedSlots() throws Exception {
+        try (MappedProductStore store = new MappedProductStore(file, 2)) {
+            for (long id = 1; id <= 10; id++) {
+                store.put(product(id, "Product " + id));
+            }
+            store.remove(3);
+            store.put(product(11, "Product 11"));
+
+            assertEquals(10, store.size());
+            assertEquals("Product 11", store.get(11).getName());
+            assertEquals("Product 10", store.get(10).getName());
+        }
+    }
+
+    @Test
+    void shouldFallBackToThePreviousVersionWhenTheLatestIsTorn() throws Exception {
+        try (MappedProductStore store = new MappedProductStore(file, 4)) {
+            store.put(product(1, "Milk"));
+            store.put(product(1, "Milky"));
+            assertEquals(1, store.values().size());
+        }
+
+        Path intact = directory.resolve("intact.db");
+        Files.copy(file, intact);
+        try (MappedProductStore store = new MappedProductStore(intact, 4)) {
+            assertEquals(1, store.size());
+            assertEquals("Milky", store.get(1).getName());
+        }
+
+        // Damages the latest record the way a write cut short by a crash would
+        byte[] bytes = Files.readAllBytes(file);
+        byte[] latest = "Milky".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i + latest.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + latest.length, latest, 0, latest.length)) {
+                bytes[i + latest.length - 1] = 'x';
+            }
+        }
+        Files.write(file, bytes);
+
+        try (MappedProductStore store = new MappedProductStore(file, 4)) {
+            assertEquals(1, store.size());
+            assertEquals("Milk", store.get(1).getName());
+            store.put(product(2, "Bread"));
+            assertEquals(List.of("Milk", "Bread"), store.values().stream().map(Product::getName).toList());
+        }
+    }
+
+    @Test
+    void shouldRejectNamesLargerThanTheirField() throws Exception {
+        try (MappedProductStore store = new MappedProductStore(file, 2)) {
+            assertThrows(IllegalArgumentException.class, () -> store.put(product(1, "x".repeat(1000))));
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    void shouldRebuildRepositoryIndexesFromReopenedStore() throws Exception {
+        try (MappedProductStore store = new MappedProductStore(file, 4)) {
+            ProductRepository repository = new ProductRepository(store);
+            repository.save(unsaved("Milk"));
+            repository.save(unsaved("Cheese"));
+        }
+
+        try (MappedProductStore store = new MappedProductStore(file, 4)) {
+            ProductRepository repository = new ProductRepository(store);
+            Product saved = repository.save(unsaved("Butter"));
+
+            assertEquals(3L, saved.getId());
+            assertEquals(List.of("Milk"), repository.findByFilter(new ProductFilter("mil", Set.of(1L), true))
+                    .stream().map(Product::getName).toList());
+        }
+    }
+}
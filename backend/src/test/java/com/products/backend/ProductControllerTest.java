@@ -1,35 +1,211 @@
-//package com.products.backend;
-//
-//import com.products.backend.controller.ProductController;
-//import com.products.backend.model.Product;
-//import com.products.backend.service.product.ProductService;
-//import org.junit.jupiter.api.Test;
-//import org.mockito.Mock;
-//import org.springframework.beans.factory.annotation.Autowired;
-//import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
-//import org.springframework.test.web.servlet.MockMvc;
-//
-//import java.time.LocalDate;
-//import java.util.List;
-//
-//import static org.mockito.Mockito.when;
-//
-//@WebMvcTest(ProductController.class)
-//public class ProductControllerTest {
-//
-//    @Autowired
-//    private MockMvc mockMvc;
-//
-//    @Mock
-//    private ProductService productService;
-//
-//    @Test
-//    void shouldReturnProductList() throws Exception {
-//        Product p = new Product("Apple", "Fruit", 1.0, LocalDate.parse("2025-12-01"), 10);
-//        when(productService.getAllProducts()).thenReturn(List.of(p));
-//
-//        mockMvc.perform(get("/products"))
-//                .andExpect(status().isOk())
-//                .andExpect(jsonPath("$[0].name").value("Apple"));
-//    }
-//}
+package com.products.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.products.backend.controller.ProductController;
+import com.products.backend.exception.BadRequestHandler;
+import com.products.backend.exception.NotFoundHandler;
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+import com.products.backend.repository.CategoryRepository;
+import com.products.backend.repository.ProductRepository;
+import com.products.backend.service.catalog.CatalogVersion;
+import com.products.backend.service.product.ProductService;
+import com.products.backend.service.product.importing.ProductImporter;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Runs the controller over a real service and in-memory repositories, without starting the application context
+public class ProductControllerTest {
+
+    private ProductRepository repository;
+    private Category food;
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ProductRepository();
+        CategoryRepository categories = new CategoryRepository();
+        categories.setPlaceHolders();
+        food = categories.findById(1L);
+        CatalogVersion catalogVersion = new CatalogVersion();
+        ProductService service = new ProductService(repository, categories, catalogVersion, "incremental", 100_000, 1024, 10_000, 100_000, 100_000);
+        ProductImporter importer = new ProductImporter(service, categories, Validation.buildDefaultValidatorFactory().getValidator(), mapper, 2);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductController(service, importer, mapper, catalogVersion))
+                .setControllerAdvice(new BadRequestHandler(), new NotFoundHandler())
+                .build();
+    }
+
+    // Streaming responses are written on another thread, this waits for them and returns the whole body
+    private String streamed(MvcResult started) throws Exception {
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private void saveProducts(int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Product product = new Product("Item " + i, "Food", i % 50 / 2.0, LocalDate.of(2025, 6, 1), i % 3);
+            product.setCategory(food);
+            products.add(product);
+        }
+        repository.saveAll(products);
+    }
+
+    @Test
+    void shouldRevalidateListsAgainstTheCatalogVersion() throws Exception {
+        saveProducts(3);
+
+        String etag = mockMvc.perform(get("/products").param("sortBy", "price"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.products.length()").value(3))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/products").param("sortBy", "price").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/products/metrics").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/products/1/outofstock")).andExpect(status().isOk());
+
+        String changed = mockMvc.perform(get("/products").param("sortBy", "price").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, changed);
+        mockMvc.perform(get("/products/1").header(HttpHeaders.IF_NONE_MATCH, changed))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/products/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, changed))
+                .andExpect(jsonPath("$.stock").value(0));
+    }
+
+    @Test
+    void shouldExportEveryMatchInOrderAcrossChunks() throws Exception {
+        saveProducts(2500);
+
+        MvcResult started = mockMvc.perform(get("/products/export").param("sortBy", "price-name").param("direction", "desc-asc"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = streamed(started).split("\n");
+
+        assertEquals(2500, lines.length);
+        List<Double> prices = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (String line : lines) {
+            JsonNode row = mapper.readTree(line);
+            prices.add(row.get("unitPrice").asDouble());
+            names.add(row.get("name").asText());
+        }
+        assertEquals(2500, names.size());
+        assertEquals(prices.stream().sorted(Comparator.reverseOrder()).toList(), prices);
+        assertEquals(24.5, prices.get(0));
+    }
+
+    @Test
+    void shouldExportSelectiveMatchesAsCsv() throws Exception {
+        saveProducts(100);
+
+        MvcResult started = mockMvc.perform(get("/products/export").param("name", "item 7").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.csv\""))
+                .andReturn();
+        String[] lines = streamed(started).split("\n");
+
+        assertEquals("id,name,category,categoryName,unitPrice,expirationDate,stock,updatedAt", lines[0]);
+        assertEquals(List.of("Item 7", "Item 70", "Item 71", "Item 72", "Item 73", "Item 74", "Item 75", "Item 76", "Item 77", "Item 78", "Item 79"),
+                Arrays.stream(lines).skip(1).map(line -> line.split(",")[1]).toList());
+    }
+
+    @Test
+    void shouldRefuseOversizedRelevanceExportsBeforeStreaming() throws Exception {
+        saveProducts(100_001);
+
+        mockMvc.perform(get("/products/export").param("name", "item").param("sortBy", "relevance"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("limited to 100000")));
+    }
+
+    @Test
+    void shouldUpdateStockInBatchesAndReportRejectedItems() throws Exception {
+        saveProducts(3);
+
+        mockMvc.perform(put("/products/stock")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"id":1,"quantity":0},{"id":null,"quantity":4},{"id":2,"quantity":7},
+                                 {"id":99,"quantity":1},{"id":3,"quantity":-2},{"id":2,"quantity":8}]
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(3))
+                .andExpect(jsonPath("$.notFound").value(contains(99)))
+                .andExpect(jsonPath("$.invalid").value(contains(1, 4)));
+
+        assertEquals(0, repository.findById(1L).orElseThrow().getStock());
+        assertEquals(8, repository.findById(2L).orElseThrow().getStock());
+        assertEquals(0, repository.findById(3L).orElseThrow().getStock());
+    }
+
+    @Test
+    void shouldImportCsvAndReportMalformedRows() throws Exception {
+        MvcResult started = mockMvc.perform(post("/products/import")
+                        .contentType("text/csv")
+                        .content("""
+                                stock,name,category,unitPrice,expirationDate
+                                5,Milk,1,1.5,2025-06-01
+                                x,Cheese,1,4.0,
+                                3,"Soap, lavender",2,2.25,
+                                """))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = streamed(started).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"line\":3,"), lines[0]);
+        assertEquals("{\"imported\":2,\"failed\":1}", lines[1]);
+        assertEquals("Soap, lavender", repository.findById(2L).orElseThrow().getName());
+    }
+
+    @Test
+    void shouldImportNdjsonAndReportMalformedRows() throws Exception {
+        MvcResult started = mockMvc.perform(post("/products/import")
+                        .contentType("application/x-ndjson")
+                        .content("""
+                                {"name":"Milk","category":{"id":1},"unitPrice":1.5,"stock":5}
+                                {"name":"Bread",
+                                {"name":"Eggs","category":{"id":1},"unitPrice":3.0,"stock":4}
+                                """))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = streamed(started).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"line\":2,"), lines[0]);
+        assertEquals("{\"imported\":2,\"failed\":1}", lines[1]);
+        assertEquals(2, repository.count());
+    }
+}
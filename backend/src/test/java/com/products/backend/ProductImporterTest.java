@@ -0,0 +1,104 @@
+package com.products.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.products.backend.dto.product.ImportError;
+import com.products.backend.dto.product.ImportSummary;
+import com.products.backend.model.Product;
+import com.products.backend.repository.CategoryRepository;
+import com.products.backend.repository.ProductRepository;
+import com.products.backend.service.product.ProductService;
+import com.products.backend.service.product.importing.ImportFormat;
+import com.products.backend.service.product.importing.ProductImporter;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductImporterTest {
+
+    private ProductRepository repository;
+    private ProductService service;
+    private ProductImporter importer;
+    private final List<ImportError> errors = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        repository = new ProductRepository();
+        CategoryRepository categories = new CategoryRepository();
+        categories.setPlaceHolders();
+        service = new ProductService(repository, categories);
+        ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+        importer = new ProductImporter(service, categories, Validation.buildDefaultValidatorFactory().getValidator(), mapper, 2);
+    }
+
+    private ImportSummary run(ImportFormat format, String body) throws IOException {
+        return importer.importProducts(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format, errors::add);
+    }
+
+    @Test
+    void shouldImportCsvRowsInBatchesAndReportRejectedOnes() throws IOException {
+        ImportSummary summary = run(ImportFormat.CSV, """
+                stock,name,category,unitPrice,expirationDate
+                5,Milk,1,1.5,2025-06-01
+                3,"Soap, lavender",2,2.25,
+
+                1,Bread,9,1.0,
+                2,,1,1.0,
+                x,Cheese,1,4.0,
+                4,Eggs,1,3.0,
+                """);
+
+        assertEquals(3, summary.getImported());
+        assertEquals(3, summary.getFailed());
+        assertEquals(List.of(5L, 6L, 7L), errors.stream().map(ImportError::getLine).toList());
+        assertEquals("Unknown category 9", errors.get(0).getError());
+        assertTrue(errors.get(1).getError().startsWith("name "));
+
+        Product soap = repository.findById(2L).orElseThrow();
+        assertEquals("Soap, lavender", soap.getName());
+        assertEquals("Cleaning", soap.getCategory().getName());
+        assertNull(soap.getExpirationDate());
+        assertEquals(LocalDate.of(2025, 6, 1), repository.findById(1L).orElseThrow().getExpirationDate());
+        // Metrics follow batch inserts like single ones: 5 * 1.5 + 4 * 3.0 in Food
+        assertEquals(19.5, service.getGeneralMetrics().get(0).getValue(), 1e-9);
+    }
+
+    @Test
+    void shouldReadQuotedCsvFieldsAcrossLines() throws IOException {
+        ImportSummary summary = run(ImportFormat.CSV, """
+                name,category,unitPrice,stock
+                "Gift box
+                ""Deluxe""\",1,9.5,2
+                Tea,1,x,1
+                "Broken
+                """);
+
+        assertEquals(1, summary.getImported());
+        assertEquals("Gift box\n\"Deluxe\"", repository.findById(1L).orElseThrow().getName());
+        assertEquals(List.of(4L, 5L), errors.stream().map(ImportError::getLine).toList());
+        assertEquals("Unterminated quoted field", errors.get(1).getError());
+    }
+
+    @Test
+    void shouldImportNdjsonRows() throws IOException {
+        ImportSummary summary = run(ImportFormat.NDJSON, """
+                {"name":"Milk","category":{"id":1},"unitPrice":1.5,"stock":5,"expirationDate":"2025-06-01"}
+                {"name":"Broken",
+                {"name":"Free","category":{"id":1},"unitPrice":0,"stock":5}
+                """);
+
+        assertEquals(1, summary.getImported());
+        assertEquals(List.of(2L, 3L), errors.stream().map(ImportError::getLine).toList());
+        assertTrue(errors.get(0).getError().startsWith("Invalid JSON"));
+        assertEquals("Food", repository.findById(1L).orElseThrow().getCategory().getName());
+    }
+}
@@ -0,0 +1,264 @@
+package com.products.backend;
+
+import com.products.backend.model.Category;
+import com.products.backend.model.Product;
+import com.products.backend.repository.ProductRepository;
+import com.products.backend.repository.index.CollationKey;
+import com.products.backend.repository.index.IndexedProduct;
+import com.products.backend.repository.index.ProductFilter;
+import com.products.backend.repository.index.ProductMatch;
+import com.products.backend.repository.index.SortField;
+import com.products.backend.repository.store.HeapProductStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductRepositoryTest {
+
+    private ProductRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ProductRepository();
+    }
+
+    private Product product(String name, long categoryId, int stock) {
+        Category category = new Category();
+        category.setId(categoryId);
+        category.setName("Category " + categoryId);
+        Product product = new Product(name, category.getName(), 1.0, LocalDate.now(), stock);
+        product.setCategory(category);
+        return product;
+    }
+
+    private List<String> names(ProductFilter filter) {
+        return repository.findByFilter(filter).stream().map(Product::getName).toList();
+    }
+
+    private List<String> namesByStock(ProductFilter filter) {
+        try (ProductMatch match = repository.match(filter)) {
+            return namesByStock(match);
+        }
+    }
+
+    private List<String> namesByStock(ProductMatch match) {
+        List<String> byStock = new ArrayList<>();
+        match.sortedGroups(SortField.STOCK, false)
+                .forEachRemaining(group -> group.forEach(entry -> byStock.add(entry.getName())));
+        return byStock;
+    }
+
+    @Test
+    void shouldIntersectCategoryStockAndNameIndexes() {
+        repository.save(product("Green Apple", 1, 5));
+        repository.save(product("Red Apple", 1, 0));
+        repository.save(product("Apple Juice", 2, 5));
+        repository.save(product("Banana", 1, 5));
+
+        assertEquals(List.of("Green Apple"), names(new ProductFilter("apple", Set.of(1L), true)));
+        assertEquals(List.of("Green Apple", "Red Apple", "Apple Juice"), names(new ProductFilter("APP", Set.of(), null)));
+        assertEquals(List.of("Red Apple"), names(new ProductFilter(null, Set.of(), false)));
+        assertEquals(4, names(ProductFilter.none()).size());
+    }
+
+    @Test
+    void shouldConfirmNameMatchesBeyondTrigrams() {
+        repository.save(product("abc-bcd", 1, 5));
+        repository.save(product("xabcdx", 1, 5));
+
+        assertEquals(List.of("xabcdx"), names(new ProductFilter("abcd", Set.of(), null)));
+        assertEquals(List.of("abc-bcd", "xabcdx"), names(new ProductFilter("b", Set.of(), null)));
+    }
+
+    @Test
+    void shouldSearchByWordPrefixesAndFragments() {
+        repository.save(product("Green Apple", 1, 5));
+        repository.save(product("Pineapple Juice", 1, 5));
+        Product grape = repository.save(product("Grape-Juice", 2, 0));
+
+        assertEquals(List.of("Green Apple", "Grape-Juice"), names(ProductFilter.search("g", Set.of(), null)));
+        assertEquals(List.of("Green Apple", "Pineapple Juice"), names(ProductFilter.search("APPLE", Set.of(), null)));
+        assertEquals(List.of("Pineapple Juice", "Grape-Juice"), names(ProductFilter.search("ju", Set.of(), null)));
+        assertEquals(List.of("Pineapple Juice"), names(ProductFilter.search("juice nea", Set.of(1L), null)));
+        assertTrue(names(ProductFilter.search("ne", Set.of(), null)).isEmpty());
+
+        grape.setName("Grapefruit");
+        repository.save(grape);
+        assertEquals(List.of("Pineapple Juice"), names(ProductFilter.search("juice", Set.of(), null)));
+        assertEquals(List.of("Grapefruit"), names(ProductFilter.search("fruit gr", Set.of(), false)));
+    }
+
+    @Test
+    void shouldSuggestNamesByPrefixOfNameOrWord() {
+        repository.save(product("Apple Pie", 1, 5));
+        Product greenApple = repository.save(product("Green Apple", 1, 5));
+        repository.save(product("Green Apple", 2, 0));
+        Product applesauce = repository.save(product("Applesauce", 1, 5));
+        repository.save(product("Banana", 1, 5));
+
+        assertEquals(List.of("Green Apple", "Apple Pie", "Applesauce"), repository.suggestNames("APP", 10));
+        assertEquals(List.of("Green Apple", "Apple Pie"), repository.suggestNames("app", 2));
+        assertEquals(List.of("Green Apple"), repository.suggestNames("gr", 10));
+
+        repository.delete(greenApple.getId());
+        assertEquals(List.of("Green Apple"), repository.suggestNames("green", 10));
+        applesauce.setName("Pear");
+        repository.save(applesauce);
+        assertEquals(List.of("Green Apple", "Apple Pie"), repository.suggestNames("apple", 10));
+        assertTrue(repository.suggestNames("applesauce", 10).isEmpty());
+        assertEquals(List.of("Pear"), repository.suggestNames("pe", 10));
+    }
+
+    @Test
+    void shouldReindexProductsMutatedInPlace() {
+        Product product = repository.save(product("Milk", 1, 5));
+
+        product.setName("Cheese");
+        product.setStock(0);
+        product.setCategory(product("ignored", 2, 0).getCategory());
+        repository.save(product);
+
+        assertTrue(names(new ProductFilter("milk", Set.of(), null)).isEmpty());
+        assertTrue(names(new ProductFilter(null, Set.of(1L), null)).isEmpty());
+        assertTrue(names(new ProductFilter(null, Set.of(), true)).isEmpty());
+        assertEquals(List.of("Cheese"), names(new ProductFilter("chee", Set.of(2L), false)));
+    }
+
+    @Test
+    void shouldDropDeletedProductsFromIndexes() {
+        Product product = repository.save(product("Soap", 3, 2));
+
+        repository.delete(product.getId());
+
+        assertTrue(names(new ProductFilter("soap", Set.of(3L), true)).isEmpty());
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void shouldWalkSortedIndexInGroupsOfEqualKeys() {
+        Product cheapMilk = product("Milk", 1, 5);
+        cheapMilk.setUnitPrice(1.0);
+        Product bread = product("Bread", 1, 5);
+        bread.setUnitPrice(2.0);
+        Product soap = product("Soap", 2, 5);
+        soap.setUnitPrice(2.0);
+        Product juice = product("Juice", 1, 0);
+        juice.setUnitPrice(3.0);
+        List.of(cheapMilk, bread, soap, juice).forEach(repository::save);
+
+        List<List<String>> groups = new ArrayList<>();
+        try (ProductMatch match = repository.match(new ProductFilter(null, Set.of(), true))) {
+            match.sortedGroups(SortField.PRICE, true)
+                    .forEachRemaining(group -> groups.add(group.stream().map(IndexedProduct::getName).toList()));
+        }
+
+        assertEquals(List.of(List.of("Soap", "Bread"), List.of("Milk")), groups);
+    }
+
+    @Test
+    void shouldOrderNamesByCollationKeysLikeCaseInsensitiveStrings() {
+        List<String> names = List.of("apple", "Apple Pie", "APPLE", "banana", "Äpfel", "äpfel", "Kiwi", "\u212Aiwi", "kiwi",
+                "Zucchini", "µg salt", "μg salt", "Straße", "STRASSE", "𐐀x", "𐐨y",
+                "Ａpple", "", "a-b", "a b");
+        for (String name : names) {
+            repository.save(product(name, 1, 5));
+        }
+
+        List<String> expected = new ArrayList<>(names);
+        expected.sort(String.CASE_INSENSITIVE_ORDER);
+        List<String> byName = new ArrayList<>();
+        try (ProductMatch match = repository.match(ProductFilter.none())) {
+            match.sortedGroups(SortField.NAME, false).forEachRemaining(group -> group.forEach(entry -> byName.add(entry.getName())));
+        }
+
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = 0; j < names.size(); j++) {
+                assertEquals(Integer.signum(String.CASE_INSENSITIVE_ORDER.compare(names.get(i), names.get(j))),
+                        Integer.signum(CollationKey.compare(CollationKey.of(names.get(i)), CollationKey.of(names.get(j)))),
+                        names.get(i) + " / " + names.get(j));
+            }
+        }
+        assertEquals(expected, byName);
+    }
+
+    @Test
+    void shouldRebuildIndexesFromProductsAlreadyInTheStore() {
+        HeapProductStore store = new HeapProductStore();
+        Product milk = product("Milk", 1, 5);
+        milk.setId(7L);
+        store.put(milk);
+
+        repository = new ProductRepository(store);
+
+        assertEquals(List.of("Milk"), names(new ProductFilter("mil", Set.of(1L), true)));
+        assertEquals(8L, repository.save(product("Bread", 1, 5)).getId());
+    }
+
+    @Test
+    void shouldMoveOnlyChangedKeysOnReindex() {
+        Product milk = repository.save(product("Milk", 1, 5));
+        repository.save(product("Cheese", 1, 3));
+
+        milk.setStock(1);
+        repository.save(milk);
+
+        assertEquals(List.of("Milk", "Cheese"), namesByStock(ProductFilter.none()));
+        assertEquals(List.of("Milk"), names(new ProductFilter("milk", Set.of(1L), true)));
+
+        milk.setStock(0);
+        milk.setName("Milky");
+        repository.save(milk);
+
+        assertEquals(List.of("Milky"), names(new ProductFilter("milky", Set.of(1L), false)));
+        assertEquals(List.of("Cheese"), names(new ProductFilter(null, Set.of(), true)));
+    }
+
+    @Test
+    void shouldOnlyExposeChangesOnceSaved() {
+        Product saved = repository.save(product("Milk", 1, 5));
+        Product reader = repository.findById(saved.getId()).orElseThrow();
+
+        Product writer = repository.findById(saved.getId()).orElseThrow();
+        writer.setName("Cheese");
+        writer.setStock(0);
+
+        assertNotSame(reader, writer);
+        assertEquals("Milk", repository.findById(saved.getId()).orElseThrow().getName());
+        repository.save(writer);
+        assertEquals("Cheese", repository.findById(saved.getId()).orElseThrow().getName());
+        assertEquals("Milk", reader.getName());
+        assertEquals(5, reader.getStock());
+    }
+
+    @Test
+    void shouldKeepReadingTheVersionAMatchWasTakenAt() {
+        Product milk = repository.save(product("Milk", 1, 5));
+        Product cheese = repository.save(product("Cheese", 1, 3));
+        Product bread = repository.save(product("Bread", 2, 7));
+
+        try (ProductMatch match = repository.match(ProductFilter.none())) {
+            milk.setStock(1);
+            milk.setName("Milky");
+            repository.save(milk);
+            repository.delete(bread.getId());
+            repository.save(product("Soap", 2, 2));
+
+            assertEquals(3, match.size());
+            assertEquals(3, match.total());
+            assertEquals(List.of("Cheese", "Milk", "Bread"), namesByStock(match));
+            assertEquals(List.of("Milk", "Cheese", "Bread"), match.products().stream().map(Product::getName).toList());
+            assertEquals(List.of("Milky", "Soap", "Cheese"), namesByStock(ProductFilter.none()));
+        }
+
+        cheese.setStock(9);
+        repository.save(cheese);
+        assertEquals(List.of("Milky", "Soap", "Cheese"), namesByStock(ProductFilter.none()));
+        assertEquals(3, repository.snapshot().length);
+    }
+}
@@ -1,18 +1,28 @@
 package com.products.backend;
 
+import com.products.backend.classes.metrics.Metric;
 import com.products.backend.dto.product.PaginatedProducts;
 import com.products.backend.dto.product.ProductRequest;
 import com.products.backend.dto.product.ProductResponse;
+import com.products.backend.dto.product.StockUpdate;
+import com.products.backend.dto.product.StockUpdateResult;
 import com.products.backend.model.Category;
 import com.products.backend.model.Product;
 import com.products.backend.repository.CategoryRepository;
 import com.products.backend.repository.ProductRepository;
+import com.products.backend.repository.index.ProductFilter;
+import com.products.backend.repository.store.ColumnarProductStore;
+import com.products.backend.service.catalog.CatalogVersion;
 import com.products.backend.service.product.ProductService;
+import com.products.backend.service.product.paging.ProductCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,11 +40,20 @@ public class ProductServiceTest {
         productService = new ProductService(productRepository, categoryRepository);
     }
 
+    // List queries go through the repository indexes, so they run against a real in-memory repository
+    private ProductService serviceWith(Product... products) {
+        ProductRepository repository = new ProductRepository();
+        for (Product product : products) {
+            repository.save(product);
+        }
+        return new ProductService(repository, categoryRepository);
+    }
+
     @Test
     void shouldReturnOnlyAvailableProducts() {
         Product p1 = new Product("A", "Category", 10.0, LocalDate.now().plusDays(10), 5);
         Product p2 = new Product("B", "Category", 15.0, LocalDate.now().plusDays(5), 0);
-        when(productRepository.findAll()).thenReturn(List.of(p1, p2));
+        ProductService productService = serviceWith(p1, p2);
 
         PaginatedProducts result = productService.getAllProducts(null, null, true, null, null, 0, 10);
 
@@ -46,7 +65,7 @@ public class ProductServiceTest {
     void shouldFilterByName() {
         Product p1 = new Product("Apple", "Category", 10.0, LocalDate.now(), 5);
         Product p2 = new Product("Banana", "Category", 15.0, LocalDate.now(), 5);
-        when(productRepository.findAll()).thenReturn(List.of(p1, p2));
+        ProductService productService = serviceWith(p1, p2);
 
         PaginatedProducts result = productService.getAllProducts("App", null, null, null, null, 0, 10);
 
@@ -54,6 +73,106 @@ public class ProductServiceTest {
         assertEquals("Apple", result.getProducts().get(0).getName());
     }
 
+    @Test
+    void shouldCountOnlyMatchingProducts() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            products.add(new Product((i < 3 ? "Apple " : "Pear ") + i, "Category", 1.0, LocalDate.now(), i % 2));
+        }
+        ProductService productService = serviceWith(products.toArray(Product[]::new));
+
+        PaginatedProducts selective = productService.getAllProducts("apple", null, null, null, null, 0, 2);
+        PaginatedProducts walked = productService.getAllProducts(null, null, true, null, null, 1, 4);
+
+        assertEquals(3, selective.getTotalElements());
+        assertEquals(2, selective.getTotalPages());
+        assertEquals(10, walked.getTotalElements());
+        assertEquals(3, walked.getTotalPages());
+        assertEquals(4, walked.getProducts().size());
+    }
+
+    @Test
+    void shouldRankNameSearchByRelevance() {
+        ProductService productService = serviceWith(
+                new Product("Pineapple", "Category", 1.0, LocalDate.now(), 5),
+                new Product("Apple Pie", "Category", 1.0, LocalDate.now(), 5),
+                new Product("Green Apple", "Category", 1.0, LocalDate.now(), 5),
+                new Product("Applesauce", "Category", 1.0, LocalDate.now(), 5),
+                new Product("Apple", "Category", 1.0, LocalDate.now(), 5),
+                new Product("Banana", "Category", 1.0, LocalDate.now(), 5));
+
+        PaginatedProducts first = productService.getAllProducts("apple", null, null, "relevance", null, 0, 3, null);
+        PaginatedProducts second = productService.getAllProducts("apple", null, null, "relevance", null, 0, 3, first.getNextCursor());
+
+        assertEquals(List.of("Apple", "Apple Pie", "Green Apple"), first.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(List.of("Applesauce", "Pineapple"), second.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(5, first.getTotalElements());
+    }
+
+    @Test
+    void shouldCachePopularQueriesAndDropOnlyAffectedOnes() {
+        ProductRepository repository = spy(new ProductRepository());
+        ProductService productService = new ProductService(repository, categoryRepository, new CatalogVersion(), "incremental", 100_000, 10, 1000, 10_000, 100_000);
+        for (int i = 0; i < 6; i++) {
+            Category category = new Category();
+            category.setId(i % 2 + 1L);
+            ProductRequest request = new ProductRequest();
+            request.setName("Item " + i);
+            request.setUnitPrice((double) i);
+            request.setStock(5);
+            request.setCategory(category);
+            productService.createProduct(request);
+        }
+
+        productService.getAllProducts(null, "1", null, "price", "desc", 0, 2);
+        PaginatedProducts built = productService.getAllProducts(null, "1", null, "price", "desc", 0, 2);
+        PaginatedProducts slice = productService.getAllProducts(null, "1", null, "PRICE", "desc-asc", 1, 2);
+        PaginatedProducts afterCursor = productService.getAllProducts(null, "1", null, "price", "desc", 0, 2, built.getNextCursor());
+        productService.getAllProducts(null, "2", null, null, null, 0, 2);
+        productService.getAllProducts(null, "2", null, null, null, 0, 2);
+
+        assertEquals(List.of("Item 4", "Item 2"), built.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(List.of("Item 0"), slice.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(List.of("Item 0"), afterCursor.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(3, slice.getTotalElements());
+        verify(repository, times(4)).match(any());
+        assertEquals(2, productService.getCacheStats().getSize());
+        assertEquals(6, productService.getCacheStats().getRows());
+        assertEquals(2, productService.getCacheStats().getHits());
+
+        // Item 1 is in category 2, the category 1 query stays cached
+        productService.markOutOfStock(2L);
+        PaginatedProducts unaffected = productService.getAllProducts(null, "1", null, "price", "desc", 0, 2);
+        PaginatedProducts recomputed = productService.getAllProducts(null, "2", true, null, null, 0, 10);
+
+        assertEquals(1, productService.getCacheStats().getInvalidations());
+        assertEquals(3, productService.getCacheStats().getHits());
+        assertEquals(built.getProducts().size(), unaffected.getProducts().size());
+        assertEquals(List.of("Item 3", "Item 5"), recomputed.getProducts().stream().map(ProductResponse::getName).toList());
+    }
+
+    @Test
+    void shouldSliceCachedResultsAtTheVersionTheyWereBuiltAt() {
+        ProductRepository repository = new ProductRepository();
+        ProductService productService = new ProductService(repository, categoryRepository, new CatalogVersion(), "incremental", 100_000, 10, 1000, 10_000, 100_000);
+        for (int i = 1; i <= 4; i++) {
+            repository.save(new Product("Item " + i, "Food", i * 1.0, null, 5));
+        }
+        productService.getAllProducts(null, null, true, "price", "asc", 0, 2);
+        PaginatedProducts built = productService.getAllProducts(null, null, true, "price", "asc", 0, 2);
+
+        // Written behind the service's back, as a write racing the read would be before its invalidation lands
+        Product cheapest = repository.findById(1L).orElseThrow();
+        cheapest.setUnitPrice(10.0);
+        cheapest.setStock(0);
+        repository.save(cheapest);
+        PaginatedProducts next = productService.getAllProducts(null, null, true, "price", "asc", 0, 2, built.getNextCursor());
+
+        assertEquals(1, productService.getCacheStats().getHits());
+        assertEquals(List.of(3.0, 4.0), next.getProducts().stream().map(ProductResponse::getUnitPrice).toList());
+        assertEquals(4, next.getTotalElements());
+    }
+
     @Test
     void shouldFilterByCategory() {
         Category cat1 = new Category();
@@ -65,7 +184,7 @@ public class ProductServiceTest {
 
         Product p2 = new Product("Soap", "Hygiene", 2.0, LocalDate.now(), 5);
 
-        when(productRepository.findAll()).thenReturn(List.of(p1, p2));
+        ProductService productService = serviceWith(p1, p2);
 
         PaginatedProducts result = productService.getAllProducts(null, "1", null, null, null, 0, 10);
 
@@ -73,6 +192,110 @@ public class ProductServiceTest {
         assertEquals("Apple", result.getProducts().get(0).getName());
     }
 
+    @Test
+    void shouldPageSortedProducts() {
+        Product p1 = new Product("Cherry", "Category", 3.0, LocalDate.now(), 5);
+        Product p2 = new Product("apple", "Category", 2.0, LocalDate.now(), 5);
+        Product p3 = new Product("Banana", "Category", 2.0, LocalDate.now(), 5);
+        Product p4 = new Product("date", "Category", 1.0, LocalDate.now(), 5);
+        ProductService productService = serviceWith(p1, p2, p3, p4);
+
+        PaginatedProducts first = productService.getAllProducts(null, null, null, "name", "asc", 0, 3);
+        PaginatedProducts second = productService.getAllProducts(null, null, null, "name", "asc", 1, 3);
+        PaginatedProducts byPrice = productService.getAllProducts(null, null, null, "price-name", "desc-asc", 0, 3);
+
+        assertEquals(List.of("apple", "Banana", "Cherry"), first.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(List.of("date"), second.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(List.of("Cherry", "apple", "Banana"), byPrice.getProducts().stream().map(ProductResponse::getName).toList());
+    }
+
+    @Test
+    void shouldReadDeepOffsetPagesFromTheEnd() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            products.add(new Product("Item " + (i % 5), "Category", (double) (i % 4), LocalDate.now(), 5));
+        }
+        ProductService productService = serviceWith(products.toArray(Product[]::new));
+
+        List<Long> exported = new ArrayList<>();
+        productService.exportProducts(null, null, null, "price-name", "desc-asc", product -> exported.add(product.getId()));
+        List<Long> paged = new ArrayList<>();
+        for (int page = 0; page < 5; page++) {
+            productService.getAllProducts(null, null, null, "price-name", "desc-asc", page, 5)
+                    .getProducts().forEach(product -> paged.add(product.getId()));
+        }
+
+        assertEquals(exported, paged);
+        assertNull(productService.getAllProducts(null, null, null, "price-name", "desc-asc", 5, 5).getProducts());
+    }
+
+    @Test
+    void shouldOrderWithinEqualPrimaryKeysWhenFilterIsSelective() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            products.add(new Product("Filler " + i, "Category", 1.0, LocalDate.now(), 5));
+        }
+        products.add(new Product("Tea B", "Category", 4.0, LocalDate.now(), 5));
+        products.add(new Product("Tea A", "Category", 4.0, LocalDate.now(), 5));
+        products.add(new Product("Tea C", "Category", 9.0, LocalDate.now(), 5));
+        ProductService productService = serviceWith(products.toArray(Product[]::new));
+
+        PaginatedProducts selective = productService.getAllProducts("tea", null, null, "price-name", "asc-desc", 0, 10);
+        PaginatedProducts walked = productService.getAllProducts(null, null, null, "price-name", "desc-desc", 0, 3);
+
+        assertEquals(List.of("Tea B", "Tea A", "Tea C"), selective.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(List.of("Tea C", "Tea B", "Tea A"), walked.getProducts().stream().map(ProductResponse::getName).toList());
+    }
+
+    @Test
+    void shouldOrderMissingKeysLikeTheSortedIndexes() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            products.add(new Product("Filler " + i, "Category", 5.0, LocalDate.now(), 5));
+        }
+        products.add(new Product("Tea B", "Category", null, LocalDate.now(), 5));
+        products.add(new Product("Tea A", "Category", 2.0, null, 5));
+        products.add(new Product("Tea C", "Category", 9.0, LocalDate.now(), 5));
+        ProductService productService = serviceWith(products.toArray(Product[]::new));
+
+        PaginatedProducts selective = productService.getAllProducts("tea", null, null, "price-name", "desc-asc", 0, 10);
+        PaginatedProducts walked = productService.getAllProducts(null, null, null, "price-name", "asc-asc", 0, 2);
+        PaginatedProducts byExpiration = productService.getAllProducts("tea", null, null, "expirationDate-name", "desc-asc", 0, 10);
+
+        assertEquals(List.of("Tea C", "Tea A", "Tea B"), selective.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(List.of("Tea B", "Tea A"), walked.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(List.of("Tea A", "Tea B", "Tea C"), byExpiration.getProducts().stream().map(ProductResponse::getName).toList());
+    }
+
+    @Test
+    void shouldContinueFromCursorAcrossInserts() {
+        ProductRepository repository = new ProductRepository();
+        ProductService productService = new ProductService(repository, categoryRepository);
+        for (String name : List.of("Apple", "Banana", "Cherry", "Date", "Fig")) {
+            repository.save(new Product(name, "Category", 1.0, LocalDate.now(), 5));
+        }
+
+        PaginatedProducts first = productService.getAllProducts(null, null, null, "price-name", "asc-asc", 0, 2, null);
+        repository.save(new Product("Avocado", "Category", 1.0, LocalDate.now(), 5));
+        PaginatedProducts second = productService.getAllProducts(null, null, null, "price-name", "asc-asc", 0, 2, first.getNextCursor());
+        PaginatedProducts third = productService.getAllProducts(null, null, null, "price-name", "asc-asc", 0, 2, second.getNextCursor());
+        PaginatedProducts filtered = productService.getAllProducts("e", null, null, "name", "desc", 0, 2, ProductCursor.encode(repository.findById(4L).orElseThrow()));
+
+        assertEquals(List.of("Apple", "Banana"), first.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(List.of("Cherry", "Date"), second.getProducts().stream().map(ProductResponse::getName).toList());
+        assertEquals(List.of("Fig"), third.getProducts().stream().map(ProductResponse::getName).toList());
+        assertNull(third.getNextCursor());
+        assertEquals(List.of("Cherry", "Apple"), filtered.getProducts().stream().map(ProductResponse::getName).toList());
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+        ProductService productService = serviceWith();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> productService.getAllProducts(null, null, null, null, null, 0, 10, "not-a-cursor"));
+    }
+
     @Test
     void shouldCreateProductSuccessfully() {
         ProductRequest request = new ProductRequest();
@@ -151,4 +374,215 @@ public class ProductServiceTest {
         verify(productRepository, times(1)).delete(1L);
         assertEquals("Juice", deleted.getName());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldKeepMetricsInSyncWithWrites() {
+        Category food = new Category();
+        food.setId(1L);
+        food.setName("Food");
+        Category pharmacy = new Category();
+        pharmacy.setId(2L);
+        pharmacy.setName("Pharmacy");
+        when(categoryRepository.findAll()).thenReturn(List.of(food, pharmacy));
+        ProductService productService = serviceWith();
+
+        ProductRequest request = new ProductRequest();
+        request.setName("Milk");
+        request.setUnitPrice(2.0);
+        request.setStock(10);
+        request.setCategory(food);
+        ProductResponse milk = productService.createProduct(request);
+        request.setName("Aspirin");
+        request.setUnitPrice(5.0);
+        request.setStock(4);
+        request.setCategory(pharmacy);
+        ProductResponse aspirin = productService.createProduct(request);
+
+        productService.markInStock(milk.getId(), 20);
+        request.setCategory(food);
+        productService.updateProduct(aspirin.getId(), request);
+        productService.markOutOfStock(aspirin.getId());
+        productService.markInStock(aspirin.getId(), 2);
+
+        List<Metric> metrics = productService.getGeneralMetrics();
+
+        assertEquals(22, metrics.get(0).getQuantity());
+        assertEquals(50.0, metrics.get(0).getValue(), 1e-9);
+        assertEquals(0, metrics.get(1).getQuantity());
+        assertEquals(22, metrics.get(2).getQuantity());
+        assertEquals(50.0 / 22, metrics.get(2).getAveragePrice(), 1e-9);
+
+        productService.deleteProductById(milk.getId());
+
+        assertEquals(10.0, productService.getGeneralMetrics().get(2).getValue(), 1e-9);
+    }
+
+    @Test
+    void shouldNotDriftFromRecomputedMetrics() {
+        Category food = new Category();
+        food.setId(1L);
+        food.setName("Food");
+        when(categoryRepository.findAll()).thenReturn(List.of(food));
+        ProductRepository repository = new ProductRepository();
+        ProductService productService = new ProductService(repository, categoryRepository);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ProductRequest request = new ProductRequest();
+            request.setName("Item " + i);
+            request.setUnitPrice(0.1 * (i + 1) + 0.07);
+            request.setStock(i % 9 + 1);
+            request.setCategory(food);
+            ids.add(productService.createProduct(request).getId());
+        }
+        for (int i = 0; i < 30; i += 3) {
+            productService.markInStock(ids.get(i), 7);
+        }
+        List<Metric> recomputed = new ProductService(repository, categoryRepository, new CatalogVersion(), "snapshot", 1, 0, 0, 0, 100_000).getGeneralMetrics();
+
+        assertEquals(recomputed.get(0).getValue(), productService.getGeneralMetrics().get(0).getValue());
+        ids.forEach(productService::deleteProductById);
+        assertEquals(0.0, productService.getGeneralMetrics().get(0).getValue());
+        assertEquals(0, productService.getGeneralMetrics().get(1).getQuantity());
+    }
+
+    @Test
+    void shouldComputeSameMetricsFromSnapshot() {
+        Category food = new Category();
+        food.setId(1L);
+        food.setName("Food");
+        when(categoryRepository.findAll()).thenReturn(List.of(food));
+        ProductRepository repository = new ProductRepository();
+        for (int i = 0; i < 50; i++) {
+            Product product = new Product("Item " + i, "Food", 1.5 + i, LocalDate.now(), i % 7);
+            product.setCategory(i % 2 == 0 ? food : null);
+            repository.save(product);
+        }
+
+        List<Metric> incremental = new ProductService(repository, categoryRepository).getGeneralMetrics();
+        List<Metric> parallel = new ProductService(repository, categoryRepository, new CatalogVersion(), "snapshot", 1, 0, 0, 0, 100_000).getGeneralMetrics();
+
+        assertEquals(2, parallel.size());
+        for (int i = 0; i < incremental.size(); i++) {
+            assertEquals(incremental.get(i).getQuantity(), parallel.get(i).getQuantity());
+            assertEquals(incremental.get(i).getValue(), parallel.get(i).getValue(), 1e-9);
+        }
+    }
+
+    @Test
+    void shouldExportInTheSameOrderAsPaging() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            products.add(new Product("Item " + (i % 7), "Category", (double) (i % 4), LocalDate.now(), i % 3));
+        }
+        ProductService productService = serviceWith(products.toArray(Product[]::new));
+
+        for (String[] sort : List.of(new String[]{"price", "desc"}, new String[]{"name", "asc"}, new String[]{"price-name", "asc-desc"})) {
+            List<Long> exported = new ArrayList<>();
+            productService.exportProducts("item", null, true, sort[0], sort[1], product -> exported.add(product.getId()));
+            List<Long> paged = productService.getAllProducts("item", null, true, sort[0], sort[1], 0, 100)
+                    .getProducts().stream().map(ProductResponse::getId).toList();
+
+            assertEquals(20, exported.size());
+            assertEquals(paged, exported);
+        }
+    }
+
+    @Test
+    void shouldSortSelectiveExportsOnExtractedKeys() {
+        ProductRepository repository = new ProductRepository();
+        for (int i = 0; i < 400; i++) {
+            Product product = new Product((i % 10 == 0 ? "Tea " : "Filler ") + (i % 7), "Category", (i % 5 - 2) * 1.5,
+                    i % 3 == 0 ? null : LocalDate.now().plusDays(i % 4), i % 6);
+            if (i % 20 == 0) {
+                product.setUnitPrice(i % 40 == 0 ? null : -0.0);
+            }
+            repository.save(product);
+        }
+        ProductService productService = new ProductService(repository, categoryRepository, new CatalogVersion(), "incremental", 100_000, 0, 0, 0, 1);
+
+        for (String[] sort : List.of(new String[]{"price-name", "desc-asc"}, new String[]{"expirationDate-stock", "asc-desc"}, new String[]{"name", "desc"})) {
+            List<Long> exported = new ArrayList<>();
+            productService.exportProducts("tea", null, null, sort[0], sort[1], product -> exported.add(product.getId()));
+            List<Long> paged = productService.getAllProducts("tea", null, null, sort[0], sort[1], 0, 100)
+                    .getProducts().stream().map(ProductResponse::getId).toList();
+
+            assertEquals(40, exported.size());
+            assertEquals(paged, exported);
+        }
+    }
+
+    @Test
+    void shouldApplyBatchStockUpdates() {
+        Category food = new Category();
+        food.setId(1L);
+        food.setName("Food");
+        when(categoryRepository.findAll()).thenReturn(List.of(food));
+        // The columnar store hands out copies, so a product listed twice must still be counted once
+        ProductRepository repository = new ProductRepository(new ColumnarProductStore());
+        for (int i = 0; i < 100; i++) {
+            Product product = new Product("Item " + i, "Food", 2.0, LocalDate.now().minusDays(3), 1);
+            product.setCategory(food);
+            repository.save(product);
+        }
+        ProductService productService = new ProductService(repository, categoryRepository);
+
+        List<StockUpdate> updates = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            updates.add(new StockUpdate(id, 0));
+        }
+        updates.add(new StockUpdate(7L, 5));
+        updates.add(new StockUpdate(7L, 9));
+        updates.add(new StockUpdate(500L, 1));
+        updates.add(new StockUpdate(8L, -1));
+        updates.add(new StockUpdate(null, 1));
+
+        StockUpdateResult result = productService.updateStock(updates);
+
+        assertEquals(102, result.getUpdated());
+        assertEquals(List.of(500L), result.getNotFound());
+        assertEquals(List.of(103, 104), result.getInvalid());
+        assertEquals(9, repository.findById(7L).orElseThrow().getStock());
+        assertEquals(LocalDate.now(), repository.findById(100L).orElseThrow().getUpdatedAt());
+        assertEquals(1, repository.findByFilter(new ProductFilter(null, Set.of(), true)).size());
+        assertEquals(9, productService.getGeneralMetrics().get(0).getQuantity());
+    }
+
+    @Test
+    void shouldNotLoseConcurrentStockDeltas() throws Exception {
+        Category food = new Category();
+        food.setId(1L);
+        food.setName("Food");
+        when(categoryRepository.findAll()).thenReturn(List.of(food));
+        ProductRepository repository = new ProductRepository(new ColumnarProductStore());
+        Product hot = new Product("Hot", "Food", 1.0, LocalDate.now(), 6000);
+        hot.setCategory(food);
+        repository.save(hot);
+        ProductService productService = new ProductService(repository, categoryRepository);
+
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int delta = t % 2 == 0 ? -3 : 1;
+            done.add(threads.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    productService.adjustStock(1L, delta, false);
+                }
+            }));
+        }
+        for (Future<?> future : done) {
+            future.get();
+        }
+        threads.shutdown();
+
+        // 6000 - 4 * 500 * 3 + 4 * 500, every interleaving stays above zero
+        assertEquals(2000, repository.findById(1L).orElseThrow().getStock());
+        assertEquals(2000, productService.getGeneralMetrics().get(0).getQuantity());
+        assertThrows(IllegalArgumentException.class, () -> productService.adjustStock(1L, -2001, false));
+        assertEquals(2000, productService.getGeneralMetrics().get(0).getQuantity());
+        assertEquals(0, productService.adjustStock(1L, -2001, true).getStock());
+        assertEquals(7, productService.adjustStock(1L, 7, false).getStock());
+        assertThrows(IllegalArgumentException.class, () -> productService.adjustStock(1L, Integer.MAX_VALUE, true));
+        assertEquals(7, productService.getProductById(1L).orElseThrow().getStock());
+    }
+}
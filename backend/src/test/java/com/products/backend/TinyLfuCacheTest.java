@@ -0,0 +1,48 @@
+package com.products.backend;
+
+import com.products.backend.service.product.caching.TinyLfuCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TinyLfuCacheTest {
+
+    @Test
+    void shouldOnlyRefusePutsWhoseKeyWasInvalidatedSinceTheirStamp() {
+        TinyLfuCache<String, int[]> cache = new TinyLfuCache<>(100, 1000, rows -> rows.length);
+        long stamp = cache.stamp();
+        cache.invalidateIf("shoes"::equals);
+
+        assertTrue(cache.put("food", new int[3], stamp));
+        assertFalse(cache.put("shoes", new int[3], stamp));
+        assertTrue(cache.put("shoes", new int[3], cache.stamp()));
+        assertNotNull(cache.get("food"));
+        assertNotNull(cache.get("shoes"));
+    }
+
+    @Test
+    void shouldRefusePutsOlderThanTheRememberedInvalidations() {
+        TinyLfuCache<String, int[]> cache = new TinyLfuCache<>(100, 1000, rows -> rows.length);
+        long stamp = cache.stamp();
+        for (int i = 0; i < 2000; i++) {
+            cache.invalidateIf("shoes"::equals);
+        }
+
+        assertFalse(cache.put("food", new int[3], stamp));
+    }
+
+    @Test
+    void shouldBoundTheTotalWeightOfTheEntries() {
+        TinyLfuCache<String, int[]> cache = new TinyLfuCache<>(100, 200, rows -> rows.length);
+        for (int i = 0; i < 10; i++) {
+            String key = "query " + i;
+            cache.get(key);
+            cache.put(key, new int[50], cache.stamp());
+        }
+
+        TinyLfuCache.Stats stats = cache.stats();
+        assertTrue(stats.weight() <= 200, "weight " + stats.weight());
+        assertTrue(stats.size() <= 3, "size " + stats.size());
+        assertTrue(stats.evictions() > 0);
+    }
+}
@@ -1,5 +1,6 @@
-import { useState } from 'react';
+import { useEffect, useState } from 'react';
 import {
+  Autocomplete,
   TextField,
   FormControl,
   InputLabel,
@@ -15,14 +16,39 @@ import {
 import { useProductContext } from '../../../context/ProductContext';
 import type ISearchBarProps from './ISearchBarProps';
 import type ICategory from '../../../interfaces/Category/ICategory';
+import { suggestNames } from '../../../service/productService';
 
 const SearchBar = ({ categories }: ISearchBarProps) => {
   const { updateParams } = useProductContext();
   const [name, setName] = useState('');
+  const [suggestions, setSuggestions] = useState<string[]>([]);
   const [selectedCategories, setSelectedCategories] = useState<ICategory[]>([]);
   const [availability, setAvailability] = useState<string>(' ');
   const theme = useTheme();
 
+  // Suggestions come from the lightweight suggest endpoint, the product list is only queried on Search
+  useEffect(() => {
+    if (!name.trim()) {
+      setSuggestions([]);
+      return;
+    }
+    // The cleanup cancels the request for text that has since changed, a late answer must not replace newer suggestions
+    const controller = new AbortController();
+    const timer = setTimeout(() => {
+      suggestNames(name, 10, controller.signal)
+        .then((names) => {
+          if (!controller.signal.aborted) setSuggestions(names);
+        })
+        .catch(() => {
+          if (!controller.signal.aborted) setSuggestions([]);
+        });
+    }, 150);
+    return () => {
+      clearTimeout(timer);
+      controller.abort();
+    };
+  }, [name]);
+
   const handleSearch = () => {
     updateParams({
       name,
@@ -70,14 +96,22 @@ const SearchBar = ({ categories }: ISearchBarProps) => {
         gap={2}>
         <Typography width={130}>Product Name:</Typography>
         <FormControl size='small'>
-          <TextField
-            size='small'
-            label='Search by name'
-            variant='outlined'
-            fullWidth
+          <Autocomplete
+            freeSolo
+            options={suggestions}
+            filterOptions={(options) => options}
+            inputValue={name}
+            onInputChange={(_, value) => setName(value)}
             sx={{ width: 500 }}
-            value={name}
-            onChange={(e) => setName(e.target.value)}
+            renderInput={(params) => (
+              <TextField
+                {...params}
+                size='small'
+                label='Search by name'
+                variant='outlined'
+                fullWidth
+              />
+            )}
           />
         </FormControl>
       </Box>
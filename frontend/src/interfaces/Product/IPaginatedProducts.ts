@@ -6,4 +6,5 @@ export default interface IPaginatedProducts{
     totalPages: number;
     page: number;
     size: number;
+    nextCursor?: string;
 }
\ No newline at end of file
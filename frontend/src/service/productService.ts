@@ -12,6 +12,8 @@ export async function getAllProducts(params: IFilterParams = {}) {
     if (params.available !== undefined)
       query.append('available', String(params.available));
     if (params.sortBy) query.append('sortBy', params.sortBy.join('-'));
+    // Name searches come back best match first until a column sort is picked
+    else if (params.name) query.append('sortBy', 'relevance');
     if (params.direction) query.append('direction', params.direction.join('-'));
     query.append('page', String(params.page ?? 0));
     query.append('size', String(params.size ?? 10));
@@ -26,6 +28,15 @@ export async function getAllProducts(params: IFilterParams = {}) {
   }
 }
 
+export async function suggestNames(prefix: string, limit = 10, signal?: AbortSignal) {
+  const query = new URLSearchParams({ prefix, limit: String(limit) });
+  const result = await axios.get<string[]>(
+    `${import.meta.env.VITE_API_URL}products/suggest?${query.toString()}`,
+    { signal }
+  );
+  return result.data;
+}
+
 export async function getById(id: number) {
   try {
     const result = await axios.get(